@@ -0,0 +1,97 @@
+package com.androidnews.classifier;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+public class AhoCorasick {
+
+    private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+    private final List<int[]> outputs = new ArrayList<>();
+    private int[] failure;
+
+    // Pattern i reports id i on every match; patterns are matched case-insensitively
+    public AhoCorasick(List<String> patterns) {
+        newNode();
+        for (int id = 0; id < patterns.size(); id++) {
+            String pattern = patterns.get(id);
+            if (pattern == null || pattern.isEmpty()) {
+                continue;
+            }
+            int node = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = Character.toLowerCase(pattern.charAt(i));
+                Integer next = transitions.get(node).get(c);
+                if (next == null) {
+                    next = newNode();
+                    transitions.get(node).put(c, next);
+                }
+                node = next;
+            }
+            outputs.set(node, append(outputs.get(node), id));
+        }
+        buildFailureLinks();
+    }
+
+    public void match(CharSequence text, IntConsumer onMatch) {
+        if (text == null) {
+            return;
+        }
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            Integer next;
+            while ((next = transitions.get(node).get(c)) == null && node != 0) {
+                node = failure[node];
+            }
+            node = next == null ? 0 : next;
+            for (int id : outputs.get(node)) {
+                onMatch.accept(id);
+            }
+        }
+    }
+
+    private void buildFailureLinks() {
+        failure = new int[transitions.size()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : transitions.get(0).values()) {
+            failure[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (Map.Entry<Character, Integer> edge : transitions.get(node).entrySet()) {
+                int child = edge.getValue();
+                int fallback = failure[node];
+                Integer target;
+                while ((target = transitions.get(fallback).get(edge.getKey())) == null && fallback != 0) {
+                    fallback = failure[fallback];
+                }
+                failure[child] = target == null || target == child ? 0 : target;
+                // Fold the suffix matches in so matching never has to walk the failure chain for outputs
+                outputs.set(child, concat(outputs.get(child), outputs.get(failure[child])));
+                queue.add(child);
+            }
+        }
+    }
+
+    private int newNode() {
+        transitions.add(new HashMap<>());
+        outputs.add(new int[0]);
+        return transitions.size() - 1;
+    }
+
+    private static int[] append(int[] values, int value) {
+        int[] result = Arrays.copyOf(values, values.length + 1);
+        result[values.length] = value;
+        return result;
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        if (second.length == 0) {
+            return first;
+        }
+        int[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
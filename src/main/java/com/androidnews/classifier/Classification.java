@@ -0,0 +1,14 @@
+package com.androidnews.classifier;
+
+import com.androidnews.model.Category;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Set;
+
+@Data
+@AllArgsConstructor
+public class Classification {
+    private final Category category;
+    private final Set<String> tags;
+}
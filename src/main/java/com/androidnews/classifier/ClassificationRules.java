@@ -0,0 +1,37 @@
+package com.androidnews.classifier;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassificationRules {
+
+    // Category rules are listed in priority order: the first rule with any match wins
+    private List<CategoryRule> categories = new ArrayList<>();
+    private List<CategoryRule> urlRules = new ArrayList<>();
+    private List<TagRule> tags = new ArrayList<>();
+    private String defaultCategory;
+    private String fallbackTag;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CategoryRule {
+        private String slug;
+        private List<String> keywords = new ArrayList<>();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TagRule {
+        private String tag;
+        private List<String> keywords = new ArrayList<>();
+    }
+}
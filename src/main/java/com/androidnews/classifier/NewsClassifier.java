@@ -0,0 +1,146 @@
+package com.androidnews.classifier;
+
+import com.androidnews.model.Category;
+import com.androidnews.service.ReferenceDataService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+@Component
+@Slf4j
+public class NewsClassifier {
+
+    private final ReferenceDataService referenceDataService;
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper;
+    private final String rulesLocation;
+
+    private volatile CompiledRules rules;
+
+    public NewsClassifier(ReferenceDataService referenceDataService, ResourceLoader resourceLoader, ObjectMapper objectMapper,
+                          @Value("${classifier.rules-location:classpath:classifier-rules.json}") String rulesLocation) {
+        this.referenceDataService = referenceDataService;
+        this.resourceLoader = resourceLoader;
+        this.objectMapper = objectMapper;
+        this.rulesLocation = rulesLocation;
+    }
+
+    @PostConstruct
+    public void init() {
+        rules = compile(loadRules());
+    }
+
+    // Swaps in a freshly compiled rule table; a broken file leaves the previous rules active
+    public synchronized void reload() {
+        rules = compile(loadRules());
+        referenceDataService.refresh();
+        log.info("Reloaded classification rules from {}", rulesLocation);
+    }
+
+    public Classification classify(String url, String text) {
+        CompiledRules current = rules;
+
+        int[] bestCategory = {Integer.MAX_VALUE};
+        if (url != null) {
+            current.urlMatcher.match(url, id -> bestCategory[0] = Math.min(bestCategory[0], current.urlPatternRule[id]));
+        }
+        String slug = bestCategory[0] != Integer.MAX_VALUE ? current.urlRuleSlugs.get(bestCategory[0]) : null;
+
+        // One pass over the text yields both the highest-priority category rule and every tag
+        int[] bestTextCategory = {Integer.MAX_VALUE};
+        Set<String> tags = new HashSet<>();
+        current.textMatcher.match(text, id -> {
+            int rule = current.textPatternRule[id];
+            if (rule < current.categorySlugs.size()) {
+                bestTextCategory[0] = Math.min(bestTextCategory[0], rule);
+            } else {
+                tags.add(current.tagNames.get(rule - current.categorySlugs.size()));
+            }
+        });
+        if (slug == null && bestTextCategory[0] != Integer.MAX_VALUE) {
+            slug = current.categorySlugs.get(bestTextCategory[0]);
+        }
+        if (tags.isEmpty() && current.fallbackTag != null) {
+            tags.add(current.fallbackTag);
+        }
+
+        return new Classification(resolveCategory(slug, current.defaultCategory), tags);
+    }
+
+    private Category resolveCategory(String slug, String defaultSlug) {
+        Optional<Category> category = slug != null ? referenceDataService.findCategory(slug) : Optional.empty();
+        if (category.isEmpty() && defaultSlug != null) {
+            category = referenceDataService.findCategory(defaultSlug);
+        }
+        return category.orElseGet(() -> referenceDataService.getCategories().iterator().next());
+    }
+
+    private ClassificationRules loadRules() {
+        Resource resource = resourceLoader.getResource(rulesLocation);
+        try (InputStream in = resource.getInputStream()) {
+            return objectMapper.readValue(in, ClassificationRules.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot load classification rules from " + rulesLocation, e);
+        }
+    }
+
+    private static CompiledRules compile(ClassificationRules source) {
+        CompiledRules compiled = new CompiledRules();
+        compiled.defaultCategory = source.getDefaultCategory();
+        compiled.fallbackTag = source.getFallbackTag();
+
+        List<String> urlPatterns = new ArrayList<>();
+        List<Integer> urlPatternRule = new ArrayList<>();
+        for (ClassificationRules.CategoryRule rule : source.getUrlRules()) {
+            for (String pattern : rule.getKeywords()) {
+                urlPatterns.add(pattern);
+                urlPatternRule.add(compiled.urlRuleSlugs.size());
+            }
+            compiled.urlRuleSlugs.add(rule.getSlug());
+        }
+
+        // Category rules occupy rule numbers [0, categories) and tag rules follow them
+        List<String> textPatterns = new ArrayList<>();
+        List<Integer> textPatternRule = new ArrayList<>();
+        for (ClassificationRules.CategoryRule rule : source.getCategories()) {
+            for (String keyword : rule.getKeywords()) {
+                textPatterns.add(keyword);
+                textPatternRule.add(compiled.categorySlugs.size());
+            }
+            compiled.categorySlugs.add(rule.getSlug());
+        }
+        for (ClassificationRules.TagRule rule : source.getTags()) {
+            for (String keyword : rule.getKeywords()) {
+                textPatterns.add(keyword);
+                textPatternRule.add(compiled.categorySlugs.size() + compiled.tagNames.size());
+            }
+            compiled.tagNames.add(rule.getTag());
+        }
+
+        compiled.urlMatcher = new AhoCorasick(urlPatterns);
+        compiled.urlPatternRule = urlPatternRule.stream().mapToInt(Integer::intValue).toArray();
+        compiled.textMatcher = new AhoCorasick(textPatterns);
+        compiled.textPatternRule = textPatternRule.stream().mapToInt(Integer::intValue).toArray();
+        return compiled;
+    }
+
+    private static class CompiledRules {
+        private final List<String> urlRuleSlugs = new ArrayList<>();
+        private final List<String> categorySlugs = new ArrayList<>();
+        private final List<String> tagNames = new ArrayList<>();
+        private AhoCorasick urlMatcher;
+        private int[] urlPatternRule;
+        private AhoCorasick textMatcher;
+        private int[] textPatternRule;
+        private String defaultCategory;
+        private String fallbackTag;
+    }
+}
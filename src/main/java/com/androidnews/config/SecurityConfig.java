@@ -24,8 +24,24 @@ public class SecurityConfig {
                 .headers().frameOptions().disable().and()
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
                 .authorizeRequests()
-                .antMatchers("/**").permitAll()
-                .anyRequest().authenticated();
+                // Operational endpoints rebuild indexes, delete articles and steer the crawler
+                .antMatchers("/admin/search-index/**").hasRole("ADMIN")
+                .antMatchers("/crawler/last-run").hasRole("ADMIN")
+                .antMatchers("/crawler/fetch-stats").hasRole("ADMIN")
+                .antMatchers("/admin/classifier/**").hasRole("ADMIN")
+                .antMatchers("/admin/counters/**").hasRole("ADMIN")
+                .antMatchers("/admin/feed-versions").hasRole("ADMIN")
+                .antMatchers("/admin/feed-cache").hasRole("ADMIN")
+                .antMatchers("/admin/news-stream").hasRole("ADMIN")
+                .antMatchers("/admin/news/**").hasRole("ADMIN")
+                .antMatchers("/admin/export").hasRole("ADMIN")
+                .antMatchers("/crawler/schedule/**").hasRole("ADMIN")
+                .antMatchers("/admin/ingest-queue").hasRole("ADMIN")
+                .antMatchers("/crawler/leases").hasRole("ADMIN")
+                .antMatchers("/admin/story-index/**").hasRole("ADMIN")
+                .anyRequest().permitAll()
+                .and()
+                .httpBasic();
 
         return http.build();
     }
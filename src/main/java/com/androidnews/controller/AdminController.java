@@ -0,0 +1,128 @@
+package com.androidnews.controller;
+
+import com.androidnews.classifier.NewsClassifier;
+import com.androidnews.dto.FeedCacheStatsDTO;
+import com.androidnews.dto.FeedVersionStatsDTO;
+import com.androidnews.dto.IngestQueueStatsDTO;
+import com.androidnews.dto.NewsStreamStatsDTO;
+import com.androidnews.dto.SearchIndexStatsDTO;
+import com.androidnews.dto.StoryIndexStatsDTO;
+import com.androidnews.service.FeedCacheService;
+import com.androidnews.service.FeedVersionService;
+import com.androidnews.service.IngestQueueService;
+import com.androidnews.service.NewsCounterService;
+import com.androidnews.service.NewsExportService;
+import com.androidnews.service.NewsIngestService;
+import com.androidnews.service.NewsStreamService;
+import com.androidnews.service.SearchIndexService;
+import com.androidnews.service.StoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final SearchIndexService searchIndexService;
+    private final NewsClassifier newsClassifier;
+    private final NewsCounterService newsCounterService;
+    private final FeedVersionService feedVersionService;
+    private final FeedCacheService feedCacheService;
+    private final NewsStreamService newsStreamService;
+    private final NewsIngestService newsIngestService;
+    private final NewsExportService newsExportService;
+    private final IngestQueueService ingestQueueService;
+    private final StoryService storyService;
+
+    @GetMapping("/search-index")
+    public ResponseEntity<SearchIndexStatsDTO> getSearchIndexStats() {
+        return ResponseEntity.ok(searchIndexService.getStats());
+    }
+
+    @GetMapping("/feed-versions")
+    public ResponseEntity<FeedVersionStatsDTO> getFeedVersionStats() {
+        return ResponseEntity.ok(feedVersionService.getStats());
+    }
+
+    @GetMapping("/feed-cache")
+    public ResponseEntity<FeedCacheStatsDTO> getFeedCacheStats() {
+        return ResponseEntity.ok(feedCacheService.getStats());
+    }
+
+    @GetMapping("/news-stream")
+    public ResponseEntity<NewsStreamStatsDTO> getNewsStreamStats() {
+        return ResponseEntity.ok(newsStreamService.getStats());
+    }
+
+    @GetMapping("/ingest-queue")
+    public ResponseEntity<IngestQueueStatsDTO> getIngestQueueStats() {
+        return ResponseEntity.ok(ingestQueueService.getStats());
+    }
+
+    @GetMapping("/story-index")
+    public ResponseEntity<StoryIndexStatsDTO> getStoryIndexStats() {
+        return ResponseEntity.ok(storyService.getStats());
+    }
+
+    @PostMapping("/search-index/rebuild")
+    public ResponseEntity<SearchIndexStatsDTO> rebuildSearchIndex() {
+        searchIndexService.rebuild();
+        return ResponseEntity.ok(searchIndexService.getStats());
+    }
+
+    @PostMapping("/story-index/rebuild")
+    public ResponseEntity<StoryIndexStatsDTO> rebuildStoryIndex() {
+        storyService.rebuild();
+        return ResponseEntity.ok(storyService.getStats());
+    }
+
+    @PostMapping("/classifier/reload")
+    public ResponseEntity<Void> reloadClassifier() {
+        newsClassifier.reload();
+        return ResponseEntity.noContent().build();
+    }
+
+    // Written synchronously on the request thread so a long export is not cut off by the async request timeout
+    @GetMapping("/export")
+    public void exportNews(HttpServletResponse response) throws IOException {
+        response.setContentType("application/gzip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("news.ndjson.gz").build().toString());
+        try {
+            newsExportService.export(response.getOutputStream());
+        } catch (NewsExportService.TooManyExportsException e) {
+            // Nothing was written yet; drop the attachment headers so the error is not saved as the export
+            response.reset();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage(), e);
+        }
+    }
+
+    @DeleteMapping("/news/{id}")
+    public ResponseEntity<Void> deleteNews(@PathVariable Long id) {
+        newsIngestService.delete(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/counters/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildCounters() {
+        int counters = newsCounterService.rebuild();
+        feedVersionService.advanceGlobal();
+        return ResponseEntity.ok(Collections.singletonMap("counters", counters));
+    }
+}
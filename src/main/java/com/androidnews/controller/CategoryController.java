@@ -2,12 +2,16 @@ package com.androidnews.controller;
 
 import com.androidnews.dto.CategoryDTO;
 import com.androidnews.service.CategoryService;
+import com.androidnews.service.FeedCacheService;
+import com.androidnews.service.FeedVersionService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -17,14 +21,33 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final FeedVersionService feedVersionService;
+    private final FeedCacheService feedCacheService;
 
     @GetMapping
-    public ResponseEntity<List<CategoryDTO>> getAllCategories() {
-        return ResponseEntity.ok(categoryService.getAllCategories());
+    public ResponseEntity<List<CategoryDTO>> getAllCategories(WebRequest webRequest) {
+        String etag = feedVersionService.globalETag();
+        if (feedVersionService.checkNotModified(webRequest, etag)) {
+            return null;
+        }
+        return versioned(etag, feedCacheService.get(FeedCacheService.Scope.GLOBAL, null, etag, "categories",
+                categoryService::getAllCategories));
     }
 
     @GetMapping("/{slug}")
-    public ResponseEntity<CategoryDTO> getCategoryBySlug(@PathVariable String slug) {
-        return ResponseEntity.ok(categoryService.getCategoryBySlug(slug));
+    public ResponseEntity<CategoryDTO> getCategoryBySlug(@PathVariable String slug, WebRequest webRequest) {
+        String etag = feedVersionService.categoryETag(slug);
+        if (feedVersionService.checkNotModified(webRequest, etag)) {
+            return null;
+        }
+        return versioned(etag, feedCacheService.get(FeedCacheService.Scope.CATEGORY, slug, etag, "category",
+                () -> categoryService.getCategoryBySlug(slug)));
+    }
+
+    private <T> ResponseEntity<T> versioned(String etag, T body) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(body);
     }
 }
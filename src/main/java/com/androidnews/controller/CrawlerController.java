@@ -0,0 +1,65 @@
+package com.androidnews.controller;
+
+import com.androidnews.crawler.PageFetcher;
+import com.androidnews.dto.CrawlLeaseDTO;
+import com.androidnews.dto.CrawlReport;
+import com.androidnews.dto.CrawlScheduleDTO;
+import com.androidnews.dto.FetchStatsDTO;
+import com.androidnews.scheduler.CrawlerScheduler;
+import com.androidnews.service.CrawlLeaseService;
+import com.androidnews.service.CrawlerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/crawler")
+@RequiredArgsConstructor
+public class CrawlerController {
+
+    private final CrawlerService crawlerService;
+    private final PageFetcher pageFetcher;
+    private final CrawlerScheduler crawlerScheduler;
+    private final CrawlLeaseService crawlLeaseService;
+
+    @GetMapping("/last-run")
+    public ResponseEntity<CrawlReport> getLastRun() {
+        return crawlerService.getLastReport()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    @GetMapping("/fetch-stats")
+    public ResponseEntity<List<FetchStatsDTO>> getFetchStats() {
+        return ResponseEntity.ok(pageFetcher.getStats());
+    }
+
+    @GetMapping("/schedule")
+    public ResponseEntity<List<CrawlScheduleDTO>> getSchedule() {
+        return ResponseEntity.ok(crawlerScheduler.getSchedule());
+    }
+
+    // Without nextRunAt the source runs on the next scheduler tick
+    @PutMapping("/schedule/{source}")
+    public ResponseEntity<CrawlScheduleDTO> overrideNextRun(
+            @PathVariable String source,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime nextRunAt) {
+        return crawlerScheduler.overrideNextRun(source, nextRunAt != null ? nextRunAt : LocalDateTime.now())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/leases")
+    public ResponseEntity<List<CrawlLeaseDTO>> getLeases() {
+        return ResponseEntity.ok(crawlLeaseService.getLeases());
+    }
+}
@@ -1,39 +1,172 @@
 package com.androidnews.controller;
 
+import com.androidnews.dto.ChangesDTO;
+import com.androidnews.dto.CursorPage;
 import com.androidnews.dto.NewsDTO;
+import com.androidnews.dto.TagDTO;
+import com.androidnews.service.FeedCacheService;
+import com.androidnews.service.FeedVersionService;
+import com.androidnews.service.NewsJsonService;
 import com.androidnews.service.NewsService;
+import com.androidnews.service.NewsStreamService;
+import com.androidnews.util.FeedCursor;
+import com.androidnews.util.FieldSelection;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/news")
 @RequiredArgsConstructor
 public class NewsController {
 
+    private static final int MAX_FEED_SIZE = 100;
+
     private final NewsService newsService;
+    private final FeedVersionService feedVersionService;
+    private final FeedCacheService feedCacheService;
+    private final NewsJsonService newsJsonService;
+    private final NewsStreamService newsStreamService;
 
     @GetMapping
     public ResponseEntity<Page<NewsDTO>> getAllNews(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "publishDate") String sortBy,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
 
         Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ?
                 Sort.Direction.ASC : Sort.Direction.DESC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
+        FieldSelection selection = parseFields(fields);
+
+        String etag = feedVersionService.globalETag();
+        if (feedVersionService.checkNotModified(webRequest, etag)) {
+            return null;
+        }
+        return versioned(etag, feedCacheService.get(FeedCacheService.Scope.GLOBAL, null, etag,
+                "news:" + page + ":" + size + ":" + sortBy + ":" + direction + ":" + fields,
+                () -> newsService.getAllNews(pageable, selection)));
+    }
+
+    @GetMapping("/feed")
+    public ResponseEntity<CursorPage<NewsDTO>> getFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+
+        FeedCursor feedCursor = parseCursor(cursor);
+        FieldSelection selection = parseFields(fields);
+
+        String etag = feedVersionService.globalETag();
+        if (feedVersionService.checkNotModified(webRequest, etag)) {
+            return null;
+        }
+        return versioned(etag, feedCacheService.get(FeedCacheService.Scope.GLOBAL, null, etag,
+                "feed:" + cursor + ":" + size + ":" + fields,
+                () -> newsService.getFeed(feedCursor, clampFeedSize(size), selection)));
+    }
+
+    @GetMapping("/category/{categorySlug}/feed")
+    public ResponseEntity<CursorPage<NewsDTO>> getCategoryFeed(
+            @PathVariable String categorySlug,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+
+        FeedCursor feedCursor = parseCursor(cursor);
+        FieldSelection selection = parseFields(fields);
+
+        String etag = feedVersionService.categoryETag(categorySlug);
+        if (feedVersionService.checkNotModified(webRequest, etag)) {
+            return null;
+        }
+        return versioned(etag, feedCacheService.get(FeedCacheService.Scope.CATEGORY, categorySlug, etag,
+                "feed:" + cursor + ":" + size + ":" + fields,
+                () -> newsService.getCategoryFeed(categorySlug, feedCursor, clampFeedSize(size), selection)));
+    }
+
+    @GetMapping("/tag/{tag}/feed")
+    public ResponseEntity<CursorPage<NewsDTO>> getTagFeed(
+            @PathVariable String tag,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+
+        FeedCursor feedCursor = parseCursor(cursor);
+        FieldSelection selection = parseFields(fields);
+
+        String etag = feedVersionService.tagETag(tag);
+        if (feedVersionService.checkNotModified(webRequest, etag)) {
+            return null;
+        }
+        return versioned(etag, feedCacheService.get(FeedCacheService.Scope.TAG, tag, etag,
+                "feed:" + cursor + ":" + size + ":" + fields,
+                () -> newsService.getTagFeed(tag, feedCursor, clampFeedSize(size), selection)));
+    }
+
+    // Offline clients pass the last nextSince they stored and apply items and deleted ids until hasMore is false
+    @GetMapping("/changes")
+    public ResponseEntity<ChangesDTO> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+
+        FieldSelection selection = parseFields(fields);
 
-        return ResponseEntity.ok(newsService.getAllNews(pageable));
+        String etag = feedVersionService.globalETag();
+        if (feedVersionService.checkNotModified(webRequest, etag)) {
+            return null;
+        }
+        return versioned(etag, feedCacheService.get(FeedCacheService.Scope.GLOBAL, null, etag,
+                "changes:" + since + ":" + limit + ":" + fields,
+                () -> newsService.getChanges(since, clampFeedSize(limit), selection)));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<NewsDTO> getNewsById(@PathVariable Long id) {
-        return ResponseEntity.ok(newsService.getNewsById(id));
+    public ResponseEntity<byte[]> getNewsById(@PathVariable Long id, WebRequest webRequest) {
+        // Related lists of older articles change with later ingests, so details follow the global version
+        String etag = feedVersionService.globalETag();
+        if (feedVersionService.checkNotModified(webRequest, etag)) {
+            return null;
+        }
+        // Pre-rendered bytes go straight to the response without DTO mapping or Jackson
+        byte[] json = feedCacheService.get(FeedCacheService.Scope.GLOBAL, null, etag, "news:" + id,
+                () -> newsJsonService.getDetailJson(id));
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json);
+    }
+
+    // Feeds carry one card per story; this lists the same story as reported by each source
+    @GetMapping("/story/{storyId}")
+    public ResponseEntity<List<NewsDTO>> getStory(@PathVariable Long storyId, WebRequest webRequest) {
+        String etag = feedVersionService.globalETag();
+        if (feedVersionService.checkNotModified(webRequest, etag)) {
+            return null;
+        }
+        return versioned(etag, feedCacheService.get(FeedCacheService.Scope.GLOBAL, null, etag, "story:" + storyId,
+                () -> newsService.getStory(storyId)));
     }
 
     @GetMapping("/category/{categorySlug}")
@@ -42,32 +175,105 @@ public class NewsController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "publishDate") String sortBy,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
 
         Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ?
                 Sort.Direction.ASC : Sort.Direction.DESC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
+        FieldSelection selection = parseFields(fields);
 
-        return ResponseEntity.ok(newsService.getNewsByCategory(categorySlug, pageable));
+        String etag = feedVersionService.categoryETag(categorySlug);
+        if (feedVersionService.checkNotModified(webRequest, etag)) {
+            return null;
+        }
+        return versioned(etag, feedCacheService.get(FeedCacheService.Scope.CATEGORY, categorySlug, etag,
+                "news:" + page + ":" + size + ":" + sortBy + ":" + direction + ":" + fields,
+                () -> newsService.getNewsByCategory(categorySlug, pageable, selection)));
     }
 
     @GetMapping("/search")
     public ResponseEntity<Page<NewsDTO>> searchNews(
             @RequestParam String query,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields) {
 
         Pageable pageable = PageRequest.of(page, size);
-        return ResponseEntity.ok(newsService.searchNews(query, pageable));
+        return ResponseEntity.ok(newsService.searchNews(query, pageable, parseFields(fields)));
     }
 
     @GetMapping("/tag/{tag}")
     public ResponseEntity<Page<NewsDTO>> getNewsByTag(
             @PathVariable String tag,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
 
         Pageable pageable = PageRequest.of(page, size);
-        return ResponseEntity.ok(newsService.getNewsByTag(tag, pageable));
+        FieldSelection selection = parseFields(fields);
+
+        String etag = feedVersionService.tagETag(tag);
+        if (feedVersionService.checkNotModified(webRequest, etag)) {
+            return null;
+        }
+        return versioned(etag, feedCacheService.get(FeedCacheService.Scope.TAG, tag, etag,
+                "news:" + page + ":" + size + ":" + fields,
+                () -> newsService.getNewsByTag(tag, pageable, selection)));
+    }
+
+    @GetMapping("/tags")
+    public ResponseEntity<List<TagDTO>> getPopularTags(@RequestParam(defaultValue = "50") int limit,
+                                                      WebRequest webRequest) {
+        String etag = feedVersionService.globalETag();
+        if (feedVersionService.checkNotModified(webRequest, etag)) {
+            return null;
+        }
+        return versioned(etag, feedCacheService.get(FeedCacheService.Scope.GLOBAL, null, etag, "tags:" + limit,
+                () -> newsService.getPopularTags(clampFeedSize(limit))));
+    }
+
+    // Pushes newly ingested article cards as they are committed; replaces polling /news
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNews(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String tag) {
+        try {
+            return newsStreamService.subscribe(category, tag);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+        }
+    }
+
+    private <T> ResponseEntity<T> versioned(String etag, T body) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(body);
+    }
+
+    private FeedCursor parseCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return FeedCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+    }
+
+    private FieldSelection parseFields(String fields) {
+        try {
+            return FieldSelection.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    private int clampFeedSize(int size) {
+        return Math.max(1, Math.min(size, MAX_FEED_SIZE));
     }
 }
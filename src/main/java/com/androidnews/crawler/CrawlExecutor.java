@@ -0,0 +1,209 @@
+package com.androidnews.crawler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+@Component
+@Slf4j
+public class CrawlExecutor implements DisposableBean {
+
+    private final boolean parallel;
+    private final int perHostLimit;
+    private final ExecutorService sourcePool;
+    private final ExecutorService fetchPool;
+    private final Map<String, HostQueue> hostQueues = new ConcurrentHashMap<>();
+
+    public CrawlExecutor(@Value("${crawler.parallel.enabled:true}") boolean parallel,
+                         @Value("${crawler.parallel.source-threads:4}") int sourceThreads,
+                         @Value("${crawler.parallel.fetch-threads:16}") int fetchThreads,
+                         @Value("${crawler.parallel.per-host-limit:4}") int perHostLimit) {
+        this.parallel = parallel;
+        this.perHostLimit = perHostLimit;
+        // Sources and article fetches get separate pools so a source waiting on its articles never starves them
+        this.sourcePool = Executors.newFixedThreadPool(sourceThreads, namedThreads("crawl-source-"));
+        this.fetchPool = Executors.newFixedThreadPool(fetchThreads, namedThreads("crawl-fetch-"));
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public <T> List<T> runSources(List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>();
+        if (!parallel) {
+            for (Callable<T> task : tasks) {
+                results.add(callQuietly(task));
+            }
+            return results;
+        }
+
+        List<Future<T>> futures = new ArrayList<>();
+        for (Callable<T> task : tasks) {
+            futures.add(sourcePool.submit(task));
+        }
+        for (Future<T> future : futures) {
+            results.add(await(future));
+        }
+        return results;
+    }
+
+    public <I, T> Fetched<T> fetchAll(List<I> items, Function<I, String> urlOf, ArticleTask<I, T> task) {
+        List<T> results = new ArrayList<>();
+        AtomicInteger failures = new AtomicInteger();
+        if (!parallel) {
+            for (I item : items) {
+                T result = fetchQuietly(item, urlOf.apply(item), task, failures);
+                if (result != null) {
+                    results.add(result);
+                }
+            }
+            return new Fetched<>(results, failures.get());
+        }
+
+        List<Future<T>> futures = new ArrayList<>();
+        for (I item : items) {
+            String url = urlOf.apply(item);
+            FutureTask<T> fetch = new FutureTask<>(() -> fetchQuietly(item, url, task, failures));
+            hostQueues.computeIfAbsent(hostOf(url), host -> new HostQueue()).submit(fetch);
+            futures.add(fetch);
+        }
+        for (Future<T> future : futures) {
+            T result = await(future);
+            if (result != null) {
+                results.add(result);
+            } else if (future.isCancelled()) {
+                failures.incrementAndGet();
+            }
+        }
+        return new Fetched<>(results, failures.get());
+    }
+
+    @Override
+    public void destroy() {
+        sourcePool.shutdownNow();
+        fetchPool.shutdownNow();
+    }
+
+    private <I, T> T fetchQuietly(I item, String url, ArticleTask<I, T> task, AtomicInteger failures) {
+        try {
+            return task.fetch(item);
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            log.error("Error fetching {}: {}", url, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private <T> T callQuietly(Callable<T> task) {
+        try {
+            return task.call();
+        } catch (Exception e) {
+            log.error("Crawl task failed: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return null;
+        } catch (ExecutionException e) {
+            log.error("Crawl task failed: {}", e.getCause().getMessage(), e.getCause());
+            return null;
+        }
+    }
+
+    static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? "" : host.toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // Fetches for one host wait in its own queue and only take a worker once the host has a free permit, so a
+    // saturated host never holds up submissions or workers for the others. Permits are shared by every crawl
+    private class HostQueue {
+        private final Semaphore permits = new Semaphore(perHostLimit);
+        private final Queue<FutureTask<?>> pending = new ConcurrentLinkedQueue<>();
+
+        void submit(FutureTask<?> fetch) {
+            pending.add(fetch);
+            drain();
+        }
+
+        // Re-checks the queue after giving a permit back, so a fetch queued meanwhile is never left behind
+        private void drain() {
+            while (!pending.isEmpty() && permits.tryAcquire()) {
+                FutureTask<?> next = pending.poll();
+                if (next == null) {
+                    permits.release();
+                    continue;
+                }
+                try {
+                    fetchPool.execute(() -> {
+                        try {
+                            next.run();
+                        } finally {
+                            permits.release();
+                            drain();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Shutting down: nobody will run it, so release whoever waits on it
+                    permits.release();
+                    next.cancel(false);
+                }
+            }
+        }
+    }
+
+    // Results of the articles that produced one, and how many threw or never ran
+    public static class Fetched<T> {
+        private final List<T> results;
+        private final int failures;
+
+        Fetched(List<T> results, int failures) {
+            this.results = results;
+            this.failures = failures;
+        }
+
+        public List<T> getResults() {
+            return results;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+    }
+
+    @FunctionalInterface
+    public interface ArticleTask<I, T> {
+        T fetch(I item) throws Exception;
+    }
+}
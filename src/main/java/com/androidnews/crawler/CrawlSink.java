@@ -0,0 +1,13 @@
+package com.androidnews.crawler;
+
+import com.androidnews.model.News;
+
+// Receives what a crawl produces: each article as soon as it is parsed, and each listing page (feed or index)
+// once every article taken from it has been fetched. The listing's validator is only stored after those articles
+// are written, so a failure anywhere means the listing is read again on the next crawl
+public interface CrawlSink {
+
+    void accept(News news);
+
+    void listingProcessed(FetchResult listing);
+}
@@ -0,0 +1,18 @@
+package com.androidnews.crawler;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class FeedItem {
+    private String id;
+    private String title;
+    private String link;
+    private String description;
+    private String content;
+    private String author;
+    private String sourceName;
+    // Null when the feed has no date or one that cannot be parsed
+    private LocalDateTime publishDate;
+}
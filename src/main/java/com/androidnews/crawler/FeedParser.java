@@ -0,0 +1,159 @@
+package com.androidnews.crawler;
+
+import com.androidnews.util.DateUtil;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Predicate;
+
+// Pull parser for RSS 2.0, RSS 1.0 and Atom. Only the item currently being read is held in memory
+@Component
+public class FeedParser {
+
+    private final XMLInputFactory inputFactory;
+
+    public FeedParser() {
+        inputFactory = XMLInputFactory.newFactory();
+        // Feeds are untrusted input: no DTDs and no external entities
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    // Hands each <item>/<entry> to the consumer as soon as its end tag is read. Returning false stops parsing
+    // without reading the rest of the document. Returns the number of items delivered
+    public int parse(InputStream in, String charset, Predicate<FeedItem> consumer) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = charset == null
+                    ? inputFactory.createXMLStreamReader(in)
+                    : inputFactory.createXMLStreamReader(in, charset);
+            return parse(reader, consumer);
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed feed: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // Nothing left to release
+                }
+            }
+        }
+    }
+
+    private int parse(XMLStreamReader reader, Predicate<FeedItem> consumer) throws XMLStreamException {
+        int delivered = 0;
+        int depth = 0;
+        int itemDepth = 0;
+        FeedItem item = null;
+        String field = null;
+        StringBuilder text = new StringBuilder();
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    String name = reader.getLocalName();
+                    if (item == null) {
+                        if ("item".equals(name) || "entry".equals(name)) {
+                            item = new FeedItem();
+                            itemDepth = depth;
+                        }
+                    } else if (depth == itemDepth + 1) {
+                        field = name;
+                        text.setLength(0);
+                        if ("link".equals(name)) {
+                            readAtomLink(reader, item);
+                        }
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                    // Nested markup (Atom <author><name>, xhtml content) contributes its text
+                    if (field != null) {
+                        text.append(reader.getText());
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (item != null && depth == itemDepth + 1 && field != null) {
+                        assign(item, field, text.toString().trim());
+                        field = null;
+                    } else if (item != null && depth == itemDepth) {
+                        delivered++;
+                        if (!consumer.test(item)) {
+                            return delivered;
+                        }
+                        item = null;
+                    }
+                    depth--;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return delivered;
+    }
+
+    // Atom links carry the URL in href; the alternate (or rel-less) link is the article itself
+    private static void readAtomLink(XMLStreamReader reader, FeedItem item) {
+        String href = reader.getAttributeValue(null, "href");
+        String rel = reader.getAttributeValue(null, "rel");
+        if (href != null && item.getLink() == null && (rel == null || "alternate".equals(rel))) {
+            item.setLink(href.trim());
+        }
+    }
+
+    private static void assign(FeedItem item, String field, String value) {
+        if (value.isEmpty()) {
+            return;
+        }
+        switch (field) {
+            case "title":
+                item.setTitle(value);
+                break;
+            case "link":
+                if (item.getLink() == null) {
+                    item.setLink(value);
+                }
+                break;
+            case "description":
+            case "summary":
+                item.setDescription(value);
+                break;
+            case "content":
+            case "encoded":
+                item.setContent(value);
+                break;
+            case "pubDate":
+            case "published":
+            case "date":
+                item.setPublishDate(DateUtil.parseFeedDate(value));
+                break;
+            case "updated":
+                if (item.getPublishDate() == null) {
+                    item.setPublishDate(DateUtil.parseFeedDate(value));
+                }
+                break;
+            case "guid":
+            case "id":
+                item.setId(value);
+                break;
+            case "author":
+            case "creator":
+                item.setAuthor(value);
+                break;
+            case "source":
+                item.setSourceName(value);
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.androidnews.crawler;
+
+import com.androidnews.model.FetchValidator;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.parser.Parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+
+public class FetchResult {
+
+    public enum Status {
+        MODIFIED,
+        NOT_MODIFIED,
+        UNCHANGED
+    }
+
+    private final String url;
+    private final Status status;
+    private final byte[] body;
+    private final String contentType;
+    private final String charset;
+    // Not yet stored: saving it before the body has been processed would turn a failed parse or write into a
+    // permanent 304 for this URL
+    private final FetchValidator validator;
+
+    private FetchResult(String url, Status status, byte[] body, String contentType, String charset,
+                        FetchValidator validator) {
+        this.url = url;
+        this.status = status;
+        this.body = body;
+        this.contentType = contentType;
+        this.charset = charset;
+        this.validator = validator;
+    }
+
+    static FetchResult modified(String url, byte[] body, String contentType, String charset, FetchValidator validator) {
+        return new FetchResult(url, Status.MODIFIED, body, contentType, charset, validator);
+    }
+
+    static FetchResult skipped(String url, Status status) {
+        return new FetchResult(url, status, new byte[0], null, null, null);
+    }
+
+    public boolean isModified() {
+        return status == Status.MODIFIED;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getCharset() {
+        return charset;
+    }
+
+    public FetchValidator getValidator() {
+        return validator;
+    }
+
+    public InputStream openStream() {
+        return new ByteArrayInputStream(body);
+    }
+
+    public Document parse() throws IOException {
+        // Match Jsoup's own choice: XML content types (RSS) need the XML parser, otherwise <link> is a void tag
+        Parser parser = contentType != null && contentType.toLowerCase(Locale.ROOT).contains("xml")
+                ? Parser.xmlParser() : Parser.htmlParser();
+        return Jsoup.parse(new ByteArrayInputStream(body), charset, url, parser);
+    }
+}
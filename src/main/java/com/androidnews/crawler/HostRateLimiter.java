@@ -0,0 +1,44 @@
+package com.androidnews.crawler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Token bucket per host: up to `burst` requests at once, then `ratePerSecond`. A caller reserves its slot under
+// the bucket lock and sleeps outside it, so waiting threads are served in arrival order without blocking each other
+class HostRateLimiter {
+
+    private final double ratePerSecond;
+    private final double burst;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    HostRateLimiter(double ratePerSecond, int burst) {
+        this.ratePerSecond = ratePerSecond;
+        this.burst = Math.max(1, burst);
+    }
+
+    // Returns the time spent waiting, in milliseconds; a non-positive rate disables limiting
+    long acquire(String host) throws InterruptedException {
+        if (ratePerSecond <= 0) {
+            return 0;
+        }
+        long waitNanos = buckets.computeIfAbsent(host, key -> new Bucket()).reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos);
+    }
+
+    private class Bucket {
+        private double tokens = burst;
+        private long updatedNanos = System.nanoTime();
+
+        synchronized long reserve() {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - updatedNanos) * ratePerSecond / 1e9);
+            updatedNanos = now;
+            tokens -= 1;
+            return tokens >= 0 ? 0 : (long) (-tokens / ratePerSecond * 1e9);
+        }
+    }
+}
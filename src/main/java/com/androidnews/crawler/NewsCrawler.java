@@ -1,12 +1,9 @@
 package com.androidnews.crawler;
 
-import com.androidnews.model.News;
-
-import java.util.List;
-
 public interface NewsCrawler {
 
-    List<News> crawlNews();
+    // Hands each parsed article to the sink as soon as it is ready and returns how many were crawled
+    int crawlNews(CrawlSink sink);
 
     String getSourceName();
 }
@@ -0,0 +1,354 @@
+package com.androidnews.crawler;
+
+import com.androidnews.dto.FetchStatsDTO;
+import com.androidnews.model.FetchValidator;
+import com.androidnews.repository.FetchValidatorRepository;
+import com.androidnews.util.UrlCanonicalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.HttpStatusException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.PushbackInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+@Component
+@Slf4j
+public class PageFetcher {
+
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    private static final ScheduledExecutorService BODY_DEADLINES = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fetch-body-deadline");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final FetchValidatorRepository fetchValidatorRepository;
+    private final HttpClient httpClient;
+    private final HostRateLimiter rateLimiter;
+    private final Duration timeout;
+    private final long maxBodyBytes;
+    private final String userAgent;
+
+    private final Map<String, SourceStats> stats = new ConcurrentHashMap<>();
+
+    public PageFetcher(FetchValidatorRepository fetchValidatorRepository,
+                       @Value("${crawler.fetch.connect-timeout-ms:5000}") long connectTimeoutMs,
+                       @Value("${crawler.fetch.timeout-ms:20000}") long timeoutMs,
+                       @Value("${crawler.fetch.max-body-bytes:5242880}") long maxBodyBytes,
+                       @Value("${crawler.fetch.host-rate-per-second:2}") double hostRatePerSecond,
+                       @Value("${crawler.fetch.host-burst:4}") int hostBurst,
+                       @Value("${crawler.fetch.user-agent:Mozilla/5.0 (compatible; AndroidNewsBot/1.0)}") String userAgent) {
+        this.fetchValidatorRepository = fetchValidatorRepository;
+        // One client for every crawler: it keeps idle HTTP/1.1 connections alive per host and multiplexes
+        // requests over a single connection when the server negotiates HTTP/2
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        this.rateLimiter = new HostRateLimiter(hostRatePerSecond, hostBurst);
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.maxBodyBytes = maxBodyBytes;
+        this.userAgent = userAgent;
+    }
+
+    public FetchResult fetch(String url, String sourceName) throws IOException {
+        String urlHash = UrlCanonicalizer.hash(url);
+        FetchValidator validator = fetchValidatorRepository.findById(urlHash).orElse(null);
+        SourceStats sourceStats = stats.computeIfAbsent(sourceName, name -> new SourceStats());
+        sourceStats.requests.increment();
+
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid URL: " + url, e);
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("User-Agent", userAgent)
+                .header("Accept-Encoding", "gzip, deflate")
+                .GET();
+        if (validator != null) {
+            if (validator.getEtag() != null) {
+                request.header("If-None-Match", validator.getEtag());
+            }
+            if (validator.getLastModified() != null) {
+                request.header("If-Modified-Since", validator.getLastModified());
+            }
+        }
+
+        try {
+            sourceStats.rateLimitWaitMillis.add(rateLimiter.acquire(CrawlExecutor.hostOf(url)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for host rate limit: " + url);
+        }
+
+        HttpResponse<InputStream> response = send(request.build());
+        if (response.statusCode() == HTTP_NOT_MODIFIED && validator != null) {
+            response.body().close();
+            sourceStats.notModified.increment();
+            sourceStats.bytesSaved.add(validator.getContentLength());
+            log.debug("Not modified: {}", url);
+            return FetchResult.skipped(url, FetchResult.Status.NOT_MODIFIED);
+        }
+        if (response.statusCode() >= 400) {
+            response.body().close();
+            throw new HttpStatusException("HTTP error fetching URL", response.statusCode(), url);
+        }
+
+        byte[] body;
+        try {
+            body = readBody(response, sourceStats);
+        } catch (BodyTooLargeException e) {
+            sourceStats.oversized.increment();
+            throw e;
+        }
+        sourceStats.bytesDecoded.add(body.length);
+        String contentHash = sha256(body);
+
+        // Servers without validators still let us skip parsing when the bytes are identical
+        boolean unchanged = validator != null && contentHash.equals(validator.getContentHash());
+        if (validator == null) {
+            validator = new FetchValidator();
+            validator.setUrlHash(urlHash);
+        }
+        validator.setUrl(url.length() > 2048 ? url.substring(0, 2048) : url);
+        validator.setSourceName(sourceName);
+        validator.setEtag(response.headers().firstValue("ETag").orElse(null));
+        validator.setLastModified(response.headers().firstValue("Last-Modified").orElse(null));
+        validator.setContentHash(contentHash);
+        validator.setContentLength(body.length);
+        validator.setLastFetched(LocalDateTime.now());
+
+        if (unchanged) {
+            // The stored hash was only written after these bytes were processed, so the fresher validators can be too
+            fetchValidatorRepository.save(validator);
+            sourceStats.unchangedContent.increment();
+            log.debug("Content unchanged: {}", url);
+            return FetchResult.skipped(url, FetchResult.Status.UNCHANGED);
+        }
+        String contentType = response.headers().firstValue("Content-Type").orElse(null);
+        return FetchResult.modified(url, body, contentType, charsetOf(contentType), validator);
+    }
+
+    // Called once everything taken from a modified page has been stored; article pages instead have their
+    // validator saved in the transaction that inserts the article
+    public void commit(FetchResult result) {
+        if (result.getValidator() != null) {
+            fetchValidatorRepository.save(result.getValidator());
+        }
+    }
+
+    private HttpResponse<InputStream> send(HttpRequest request) throws IOException {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted fetching " + request.uri());
+        }
+    }
+
+    // Decompresses straight off the connection in one pass, capping the wire bytes and the decoded bytes as they
+    // are read, so neither an oversized page nor a small gzip bomb is ever held in full; a declared Content-Length
+    // over the cap is rejected before reading anything. The request timeout only covers the response headers, so
+    // the body gets its own deadline, enforced by closing the stream, for servers that trickle bytes
+    private byte[] readBody(HttpResponse<InputStream> response, SourceStats sourceStats) throws IOException {
+        InputStream raw = response.body();
+        long declared = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        if (declared > maxBodyBytes) {
+            raw.close();
+            throw new BodyTooLargeException("Content-Length " + declared + " exceeds " + maxBodyBytes);
+        }
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> deadline = BODY_DEADLINES.schedule(() -> {
+            timedOut.set(true);
+            closeQuietly(raw);
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+        CappedInputStream wire = new CappedInputStream(raw, maxBodyBytes, "Body");
+        try (InputStream decoded = new CappedInputStream(
+                decoder(wire, response.headers().firstValue("Content-Encoding").orElse(null)), maxBodyBytes, "Decoded body")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(declared > 0 ? (int) declared : 8192);
+            decoded.transferTo(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            if (timedOut.get() && !(e instanceof BodyTooLargeException)) {
+                throw new HttpTimeoutException("Timed out reading " + response.uri());
+            }
+            throw e;
+        } finally {
+            deadline.cancel(false);
+            // Hands the connection back, or drops it when the body was abandoned part way
+            closeQuietly(raw);
+            sourceStats.bytesDownloaded.add(wire.count);
+        }
+    }
+
+    private static InputStream decoder(InputStream wire, String contentEncoding) throws IOException {
+        if (contentEncoding == null) {
+            return wire;
+        }
+        switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+            case "gzip":
+            case "x-gzip":
+            case "deflate":
+                break;
+            case "identity":
+                return wire;
+            default:
+                throw new IOException("Unsupported Content-Encoding: " + contentEncoding);
+        }
+        // An empty body has no gzip header to read
+        PushbackInputStream in = new PushbackInputStream(wire, 1);
+        int first = in.read();
+        if (first == -1) {
+            return in;
+        }
+        in.unread(first);
+        return contentEncoding.trim().equalsIgnoreCase("deflate")
+                ? new InflaterInputStream(in)
+                : new GZIPInputStream(in, 8192);
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            // Already broken; the reader sees the failure
+        }
+    }
+
+    private static String charsetOf(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        for (String param : contentType.split(";")) {
+            String trimmed = param.trim();
+            if (trimmed.regionMatches(true, 0, "charset=", 0, 8)) {
+                String charset = trimmed.substring(8).replace("\"", "").trim();
+                try {
+                    // Unknown names fall back to Jsoup's own detection from the document
+                    return Charset.isSupported(charset) ? charset : null;
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    public List<FetchStatsDTO> getStats() {
+        List<FetchStatsDTO> result = new ArrayList<>();
+        stats.forEach((source, sourceStats) -> result.add(new FetchStatsDTO(
+                source,
+                sourceStats.requests.sum(),
+                sourceStats.notModified.sum(),
+                sourceStats.unchangedContent.sum(),
+                sourceStats.notModified.sum() + sourceStats.unchangedContent.sum(),
+                sourceStats.bytesDownloaded.sum(),
+                sourceStats.bytesSaved.sum(),
+                sourceStats.bytesDecoded.sum(),
+                sourceStats.oversized.sum(),
+                sourceStats.rateLimitWaitMillis.sum()
+        )));
+        return result;
+    }
+
+    private static String sha256(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static class SourceStats {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder notModified = new LongAdder();
+        private final LongAdder unchangedContent = new LongAdder();
+        private final LongAdder bytesDownloaded = new LongAdder();
+        private final LongAdder bytesSaved = new LongAdder();
+        private final LongAdder bytesDecoded = new LongAdder();
+        private final LongAdder oversized = new LongAdder();
+        private final LongAdder rateLimitWaitMillis = new LongAdder();
+    }
+
+    static class BodyTooLargeException extends IOException {
+        BodyTooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    // Counts what passes through and fails the read that would take it past the cap
+    private static class CappedInputStream extends FilterInputStream {
+        private final long maxBytes;
+        private final String what;
+        private long count;
+
+        CappedInputStream(InputStream in, long maxBytes, String what) {
+            super(in);
+            this.maxBytes = maxBytes;
+            this.what = what;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                counted(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                counted(read);
+            }
+            return read;
+        }
+
+        private void counted(int read) throws BodyTooLargeException {
+            count += read;
+            if (count > maxBytes) {
+                throw new BodyTooLargeException(what + " exceeds " + maxBytes + " bytes");
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.androidnews.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangesDTO {
+    private List<NewsDTO> items = new ArrayList<>();
+    private List<Long> deleted = new ArrayList<>();
+    private long nextSince;
+    private boolean hasMore;
+}
@@ -0,0 +1,19 @@
+package com.androidnews.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CrawlLeaseDTO {
+    private String source;
+    private String owner;
+    private LocalDateTime acquiredAt;
+    private LocalDateTime expiresAt;
+    private boolean expired;
+    private boolean heldByThisNode;
+}
@@ -0,0 +1,24 @@
+package com.androidnews.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CrawlReport {
+    private String mode;
+    private LocalDateTime startedAt;
+    private long elapsedMillis;
+    private long ingestBatches;
+    private long connectionHoldMillis;
+    private long longestConnectionHoldMillis;
+    private long backpressureMillis;
+    private Map<String, Integer> crawledBySource = new LinkedHashMap<>();
+    private Map<String, Integer> savedBySource = new LinkedHashMap<>();
+}
@@ -0,0 +1,22 @@
+package com.androidnews.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CrawlScheduleDTO {
+    private String source;
+    private LocalDateTime nextRunAt;
+    private long intervalSeconds;
+    private double itemsPerHour;
+    private LocalDateTime lastRunAt;
+    private int lastNewItems;
+    private long runs;
+    private boolean overridden;
+    private boolean leasedElsewhere;
+}
@@ -0,0 +1,18 @@
+package com.androidnews.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeedVersionStatsDTO {
+    private long globalVersion;
+    private Map<String, Long> categoryVersions;
+    private long conditionalRequests;
+    private long notModified;
+    private long fullResponses;
+}
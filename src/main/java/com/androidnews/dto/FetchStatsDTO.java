@@ -0,0 +1,21 @@
+package com.androidnews.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FetchStatsDTO {
+    private String source;
+    private long requests;
+    private long notModified;
+    private long unchangedContent;
+    private long skippedParses;
+    private long bytesDownloaded;
+    private long bytesSaved;
+    private long bytesDecoded;
+    private long oversized;
+    private long rateLimitWaitMillis;
+}
@@ -0,0 +1,20 @@
+package com.androidnews.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestQueueStatsDTO {
+    private int queued;
+    private int capacity;
+    private long batches;
+    private long written;
+    private long failed;
+    private long transactionMillis;
+    private long maxTransactionMillis;
+    private long backpressureWaits;
+    private long backpressureMillis;
+}
@@ -1,16 +1,19 @@
 package com.androidnews.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class NewsDTO {
     private Long id;
     private String title;
@@ -28,4 +31,28 @@ public class NewsDTO {
     private String author;
     private String authorBio;
     private String authorAvatar;
+    private List<NewsDTO> relatedNews;
+    // Set on every article of a multi-source story; /news/story/{storyId} lists the other sources
+    private Long storyId;
+
+    // Card projection used by list views; fields it does not read stay null and are left out of the JSON
+    public NewsDTO(Long id, String title, String summary, String imageUrl, LocalDateTime publishDate,
+                   String source, String sourceLogoUrl, String category, String categorySlug) {
+        this(id, title, summary, imageUrl, publishDate, source, sourceLogoUrl, category, categorySlug, null);
+    }
+
+    public NewsDTO(Long id, String title, String summary, String imageUrl, LocalDateTime publishDate,
+                   String source, String sourceLogoUrl, String category, String categorySlug, Long storyId) {
+        this.id = id;
+        this.title = title;
+        this.summary = summary;
+        this.imageUrl = imageUrl;
+        this.publishDate = publishDate;
+        this.source = source;
+        this.sourceLogoUrl = sourceLogoUrl;
+        this.category = category;
+        this.categorySlug = categorySlug;
+        this.storyId = storyId;
+        this.tags = null;
+    }
 }
@@ -0,0 +1,16 @@
+package com.androidnews.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NewsStreamStatsDTO {
+    private int subscribers;
+    private long eventsPublished;
+    private long eventsSent;
+    private long slowConsumersDropped;
+    private long rejectedSubscriptions;
+}
@@ -0,0 +1,15 @@
+package com.androidnews.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchIndexStatsDTO {
+    private boolean ready;
+    private int documents;
+    private int terms;
+    private long lastRebuildMillis;
+}
@@ -0,0 +1,18 @@
+package com.androidnews.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoryIndexStatsDTO {
+    private boolean ready;
+    private int articles;
+    private int buckets;
+    private long lookups;
+    private long matches;
+    private long averageLookupMicros;
+    private long lastRebuildMillis;
+}
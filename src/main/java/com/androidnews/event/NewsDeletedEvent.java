@@ -0,0 +1,16 @@
+package com.androidnews.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Set;
+
+@Data
+@AllArgsConstructor
+public class NewsDeletedEvent {
+    private final Long newsId;
+    private final Long storyId;
+    private final String categorySlug;
+    private final String sourceName;
+    private final Set<String> tags;
+}
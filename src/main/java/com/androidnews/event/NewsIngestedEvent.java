@@ -0,0 +1,13 @@
+package com.androidnews.event;
+
+import com.androidnews.model.News;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class NewsIngestedEvent {
+    private final List<News> news;
+}
@@ -0,0 +1,38 @@
+package com.androidnews.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Version;
+import java.time.LocalDateTime;
+
+// One row per source names the node allowed to crawl it until expiresAt; the owner extends it on every heartbeat
+@Entity
+@Table(name = "crawl_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CrawlLease {
+
+    @Id
+    @Column(length = 100)
+    private String source;
+
+    @Column(nullable = false, length = 128)
+    private String owner;
+
+    @Column(name = "acquired_at", nullable = false)
+    private LocalDateTime acquiredAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Two nodes taking over the same expired lease cannot both commit
+    @Version
+    private Long version;
+}
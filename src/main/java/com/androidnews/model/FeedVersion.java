@@ -0,0 +1,27 @@
+package com.androidnews.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+// Change counter of one feed scope, shared by every node so they all hand out the same ETags
+@Entity
+@Table(name = "feed_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeedVersion {
+
+    // "global", "category:<slug>" or "tag:<tag>"
+    @Id
+    @Column(name = "scope_key", length = 300)
+    private String scopeKey;
+
+    @Column(nullable = false)
+    private long version;
+}
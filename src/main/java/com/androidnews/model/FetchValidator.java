@@ -0,0 +1,44 @@
+package com.androidnews.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "fetch_validators")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FetchValidator {
+
+    @Id
+    @Column(name = "url_hash", length = 64)
+    private String urlHash;
+
+    @Column(nullable = false, length = 2048)
+    private String url;
+
+    @Column(name = "source_name", length = 100)
+    private String sourceName;
+
+    @Column(length = 512)
+    private String etag;
+
+    @Column(name = "last_modified", length = 64)
+    private String lastModified;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "content_length")
+    private long contentLength;
+
+    @Column(name = "last_fetched")
+    private LocalDateTime lastFetched;
+}
@@ -1,30 +1,56 @@
 package com.androidnews.model;
 
+import com.androidnews.util.UrlCanonicalizer;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "news")
+@Table(name = "news",
+        uniqueConstraints = @UniqueConstraint(name = "uk_news_source_url_hash", columnNames = "source_url_hash"),
+        indexes = {
+                @Index(name = "idx_news_publish_date_id", columnList = "publish_date DESC, id DESC"),
+                @Index(name = "idx_news_category_publish_date_id", columnList = "category_id, publish_date DESC, id DESC"),
+                @Index(name = "idx_news_ingest_seq", columnList = "ingest_seq", unique = true),
+                @Index(name = "idx_news_story_id", columnList = "story_id")
+        })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class News {
 
+    // Pooled sequence ids keep Hibernate's JDBC insert batching enabled (IDENTITY forces row-by-row inserts)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "news_seq")
+    @SequenceGenerator(name = "news_seq", sequenceName = "news_seq", allocationSize = 50)
     private Long id;
 
+    // Commit-ordered change sequence shared with tombstones; drives /news/changes
+    @Column(name = "ingest_seq")
+    private Long ingestSeq;
+
+    // The ingest sequence of the insert itself; ingestSeq moves on when the article changes later, this never does
+    @Column(name = "insert_seq")
+    private Long insertSeq;
+
+    // Id of the earliest article of the same story; null while the article has no near-duplicates
+    @Column(name = "story_id")
+    private Long storyId;
+
     @Column(nullable = false, length = 255)
     private String title;
 
-    @Column(nullable = false, columnDefinition = "TEXT")
-    private String content;
+    // Article HTML lives compressed in news_bodies; the owning foreign key lets Hibernate proxy it, so rows
+    // loaded for lists and indexes never read the body unless getContent() is called
+    @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "body_id")
+    private NewsBody body;
 
     @Column(nullable = false, columnDefinition = "TEXT")
     private String summary;
@@ -41,17 +67,22 @@ public class News {
     @Column(name = "source_url", columnDefinition = "CLOB")
     private String sourceUrl;
 
+    // SHA-256 of the canonical source URL; the CLOB itself cannot be indexed for dedup lookups
+    @Column(name = "source_url_hash", length = 64)
+    private String sourceUrlHash;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    // Read paths join these explicitly (entity graphs or projections) instead of eager per-row selects
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "source_id", nullable = false)
     private Source source;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
 
     @ElementCollection
-    @CollectionTable(name = "news_tags", joinColumns = @JoinColumn(name = "news_id"))
+    @CollectionTable(name = "news_tags", joinColumns = @JoinColumn(name = "news_id"),
+            indexes = @Index(name = "idx_news_tags_tag_news_id", columnList = "tag, news_id"))
     @Column(name = "tag")
     private Set<String> tags = new HashSet<>();
 
@@ -63,4 +94,39 @@ public class News {
 
     @Column(name = "author_avatar")
     private String authorAvatar;
+
+    // MinHash signature computed at ingest and handed to the story index after commit
+    @Transient
+    private int[] fingerprint;
+
+    // Conditional-request validator of the page the article was parsed from, saved in the ingest transaction
+    @Transient
+    private FetchValidator fetchValidator;
+
+    public String getContent() {
+        return body == null ? null : body.getContent();
+    }
+
+    public void setContent(String content) {
+        if (body == null) {
+            body = new NewsBody();
+        }
+        body.setContent(content);
+    }
+
+    // Hashed on insert only: the backfill deliberately leaves duplicate legacy rows without a hash, and later
+    // updates of those rows must not recompute it into the unique index
+    @PrePersist
+    void hashBeforePersist() {
+        sourceUrlHash = UrlCanonicalizer.hash(sourceUrl);
+        truncatePublishDate();
+    }
+
+    @PreUpdate
+    void truncatePublishDate() {
+        // The column keeps microseconds; truncating up front keeps the persisted entity equal to what is read back
+        if (publishDate != null) {
+            publishDate = publishDate.truncatedTo(ChronoUnit.MICROS);
+        }
+    }
 }
@@ -0,0 +1,27 @@
+package com.androidnews.model;
+
+import com.androidnews.util.DeflateConverter;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+@Entity
+@Table(name = "news_bodies")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NewsBody {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "news_body_seq")
+    @SequenceGenerator(name = "news_body_seq", sequenceName = "news_body_seq", allocationSize = 50)
+    private Long id;
+
+    // Full extracted HTML, deflated on write and inflated on read
+    @Lob
+    @Convert(converter = DeflateConverter.class)
+    @Column(name = "content", nullable = false)
+    private String content;
+}
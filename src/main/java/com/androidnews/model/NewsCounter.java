@@ -0,0 +1,48 @@
+package com.androidnews.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+@Entity
+@Table(name = "news_counters")
+@IdClass(NewsCounter.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NewsCounter {
+
+    public enum Dimension {
+        CATEGORY, SOURCE, TAG
+    }
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private Dimension dimension;
+
+    // Category slug, source name or tag
+    @Id
+    @Column(name = "counter_key")
+    private String counterKey;
+
+    @Column(name = "news_count", nullable = false)
+    private long newsCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Dimension dimension;
+        private String counterKey;
+    }
+}
@@ -0,0 +1,26 @@
+package com.androidnews.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+// MinHash signature of an article's title and body text, kept so the story index rebuilds without re-reading bodies
+@Entity
+@Table(name = "news_fingerprints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NewsFingerprint {
+
+    @Id
+    @Column(name = "news_id")
+    private Long newsId;
+
+    @Column(nullable = false, length = 400)
+    private byte[] signature;
+}
@@ -0,0 +1,35 @@
+package com.androidnews.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "news_json")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NewsJson {
+
+    @Id
+    @Column(name = "news_id")
+    private Long newsId;
+
+    @Column(name = "render_version", nullable = false)
+    private int renderVersion;
+
+    @Lob
+    @Column(name = "card_json", nullable = false)
+    private byte[] cardJson;
+
+    // Full article without relatedNews, which is spliced in per request
+    @Lob
+    @Column(name = "detail_json", nullable = false)
+    private byte[] detailJson;
+}
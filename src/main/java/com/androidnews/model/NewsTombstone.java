@@ -0,0 +1,32 @@
+package com.androidnews.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "news_tombstones", indexes = {
+        @Index(name = "idx_news_tombstones_seq", columnList = "seq", unique = true)
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NewsTombstone {
+
+    @Id
+    @Column(name = "news_id")
+    private Long newsId;
+
+    @Column(nullable = false)
+    private long seq;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
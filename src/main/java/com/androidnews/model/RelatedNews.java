@@ -0,0 +1,43 @@
+package com.androidnews.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+@Entity
+@Table(name = "related_news", indexes = {
+        @Index(name = "idx_related_news_news_id_score", columnList = "news_id, score DESC")
+})
+@IdClass(RelatedNews.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelatedNews {
+
+    @Id
+    @Column(name = "news_id")
+    private Long newsId;
+
+    @Id
+    @Column(name = "related_id")
+    private Long relatedId;
+
+    @Column(nullable = false)
+    private int score;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long newsId;
+        private Long relatedId;
+    }
+}
@@ -0,0 +1,25 @@
+package com.androidnews.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "sync_sequences")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncSequence {
+
+    @Id
+    @Column(length = 32)
+    private String name;
+
+    @Column(name = "next_value", nullable = false)
+    private long nextValue;
+}
@@ -0,0 +1,21 @@
+package com.androidnews.repository;
+
+import com.androidnews.model.CrawlLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CrawlLeaseRepository extends JpaRepository<CrawlLease, String> {
+
+    List<CrawlLease> findAllByOrderBySourceAsc();
+
+    // Unversioned on purpose: a release must not fail because this node extended the lease a moment earlier
+    @Modifying
+    @Query("DELETE FROM CrawlLease l WHERE l.source = :source AND l.owner = :owner")
+    int deleteBySourceAndOwner(@Param("source") String source, @Param("owner") String owner);
+}
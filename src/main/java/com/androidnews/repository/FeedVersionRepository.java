@@ -0,0 +1,23 @@
+package com.androidnews.repository;
+
+import com.androidnews.model.FeedVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FeedVersionRepository extends JpaRepository<FeedVersion, String> {
+
+    // The row locks are held until the caller commits, so a version never becomes visible before its rows
+    @Modifying
+    @Query("UPDATE FeedVersion v SET v.version = v.version + 1 WHERE v.scopeKey IN :keys")
+    int advance(@Param("keys") Collection<String> keys);
+
+    @Query("SELECT v FROM FeedVersion v WHERE v.scopeKey LIKE :prefix%")
+    List<FeedVersion> findByPrefix(@Param("prefix") String prefix);
+}
@@ -0,0 +1,9 @@
+package com.androidnews.repository;
+
+import com.androidnews.model.FetchValidator;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FetchValidatorRepository extends JpaRepository<FetchValidator, String> {
+}
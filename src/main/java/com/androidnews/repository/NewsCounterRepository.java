@@ -0,0 +1,30 @@
+package com.androidnews.repository;
+
+import com.androidnews.model.NewsCounter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface NewsCounterRepository extends JpaRepository<NewsCounter, NewsCounter.Key> {
+
+    List<NewsCounter> findByDimension(NewsCounter.Dimension dimension);
+
+    List<NewsCounter> findByDimensionOrderByNewsCountDesc(NewsCounter.Dimension dimension, Pageable pageable);
+
+    // Relative update, so concurrent ingests never overwrite each other's increments
+    @Modifying
+    @Query("UPDATE NewsCounter c SET c.newsCount = c.newsCount + :delta " +
+            "WHERE c.dimension = :dimension AND c.counterKey = :key")
+    int increment(@Param("dimension") NewsCounter.Dimension dimension, @Param("key") String key,
+                  @Param("delta") long delta);
+
+    @Modifying
+    @Query("DELETE FROM NewsCounter c")
+    int deleteAllCounters();
+}
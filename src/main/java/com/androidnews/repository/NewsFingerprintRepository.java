@@ -0,0 +1,24 @@
+package com.androidnews.repository;
+
+import com.androidnews.model.NewsFingerprint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface NewsFingerprintRepository extends JpaRepository<NewsFingerprint, Long> {
+
+    // Signature, story and publish date for index rebuilds, in primary key order
+    @Query("SELECT f.newsId, f.signature, n.storyId, n.publishDate FROM NewsFingerprint f, News n " +
+            "WHERE n.id = f.newsId AND f.newsId > :lastId ORDER BY f.newsId")
+    List<Object[]> findIndexChunk(@Param("lastId") long lastId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM NewsFingerprint f WHERE f.newsId = :newsId")
+    int deleteByNewsId(@Param("newsId") Long newsId);
+}
@@ -0,0 +1,31 @@
+package com.androidnews.repository;
+
+import com.androidnews.model.NewsJson;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NewsJsonRepository extends JpaRepository<NewsJson, Long> {
+
+    @Query("SELECT j.detailJson FROM NewsJson j WHERE j.newsId = :newsId AND j.renderVersion = :version")
+    List<byte[]> findDetailJson(@Param("newsId") Long newsId, @Param("version") int version);
+
+    @Query("SELECT j.cardJson FROM RelatedNews r, NewsJson j WHERE r.newsId = :newsId AND j.newsId = r.relatedId " +
+            "AND j.renderVersion = :version ORDER BY r.score DESC, r.relatedId DESC")
+    List<byte[]> findRelatedCardJson(@Param("newsId") Long newsId, @Param("version") int version);
+
+    @Query("SELECT n.id FROM News n WHERE n.id > :afterId AND NOT EXISTS " +
+            "(SELECT j.newsId FROM NewsJson j WHERE j.newsId = n.id AND j.renderVersion = :version) ORDER BY n.id")
+    List<Long> findIdsWithoutJson(@Param("afterId") Long afterId, @Param("version") int version, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM NewsJson j WHERE j.newsId IN :newsIds")
+    int deleteByNewsIds(@Param("newsIds") Collection<Long> newsIds);
+}
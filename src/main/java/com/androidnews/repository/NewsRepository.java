@@ -1,17 +1,27 @@
 package com.androidnews.repository;
 
+import com.androidnews.dto.NewsDTO;
 import com.androidnews.model.Category;
 import com.androidnews.model.News;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface NewsRepository extends JpaRepository<News, Long> {
@@ -20,9 +30,89 @@ public interface NewsRepository extends JpaRepository<News, Long> {
 
     Page<News> findByCategoryOrderByPublishDateDesc(Category category, Pageable pageable);
 
-    Optional<News> findBySourceUrl(String sourceUrl);
+    Optional<News> findBySourceUrlHash(String sourceUrlHash);
+
+    boolean existsBySourceUrlHash(String sourceUrlHash);
+
+    @Query("SELECT n.sourceUrlHash FROM News n WHERE n.sourceUrlHash IN :hashes")
+    List<String> findExistingSourceUrlHashes(@Param("hashes") Collection<String> hashes);
+
+    List<News> findTop500BySourceUrlHashIsNullAndIdGreaterThanOrderByIdAsc(Long id);
+
+    // Index rebuilds read every body, so fetch them in the same statement
+    @EntityGraph(attributePaths = "body")
+    List<News> findTop500ByIdGreaterThanOrderByIdAsc(Long id);
+
+    List<News> findTop500ByIngestSeqIsNullAndIdGreaterThanOrderByIdAsc(Long id);
+
+    @Query("SELECT MAX(n.id) FROM News n")
+    Long findMaxId();
+
+    @Query("SELECT n FROM News n LEFT JOIN FETCH n.body WHERE n.id > :lastId " +
+            "AND NOT EXISTS (SELECT f.newsId FROM NewsFingerprint f WHERE f.newsId = n.id) ORDER BY n.id")
+    List<News> findUnfingerprinted(@Param("lastId") long lastId, Pageable pageable);
+
+    @Query("SELECT n.id FROM News n WHERE n.storyId = :storyId")
+    List<Long> findIdsByStoryId(@Param("storyId") Long storyId);
+
+    @Modifying
+    @Query("UPDATE News n SET n.storyId = n.id WHERE n.id IN :ids AND n.storyId IS NULL")
+    int markStoryRoots(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE News n SET n.storyId = :to WHERE n.storyId = :from")
+    int reassignStory(@Param("from") Long from, @Param("to") Long to);
+
+    @Modifying
+    @Query("UPDATE News n SET n.ingestSeq = :seq WHERE n.id = :id")
+    int updateIngestSeq(@Param("id") Long id, @Param("seq") long seq);
+
+    // Forward-only cursor for exports; read-only rows keep no dirty-checking snapshots in the session
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("SELECT n FROM News n JOIN FETCH n.source JOIN FETCH n.category LEFT JOIN FETCH n.body ORDER BY n.id")
+    Stream<News> streamAllForExport();
+
+    // Range scan on idx_news_ingest_seq
+    @Query("SELECT n.ingestSeq, n.id FROM News n WHERE n.ingestSeq > :since ORDER BY n.ingestSeq")
+    List<Object[]> findChanges(@Param("since") long since, Pageable pageable);
+
+    @Query("SELECT MAX(n.ingestSeq) FROM News n")
+    Long findMaxIngestSeq();
+
+    @Query("SELECT c.slug, COUNT(n) FROM News n JOIN n.category c GROUP BY c.slug")
+    List<Object[]> countByCategorySlug();
+
+    @Query("SELECT s.name, COUNT(n) FROM News n JOIN n.source s GROUP BY s.name")
+    List<Object[]> countBySourceName();
+
+    @Query("SELECT t, COUNT(n) FROM News n JOIN n.tags t GROUP BY t")
+    List<Object[]> countByTag();
+
+    // Every caller converts or renders the whole article, so the body is joined rather than batch-loaded after
+    @EntityGraph(attributePaths = {"source", "category", "body"})
+    Optional<News> findWithReferencesById(Long id);
+
+    @EntityGraph(attributePaths = {"source", "category", "body"})
+    @Query("SELECT n FROM News n WHERE n.id IN :ids")
+    List<News> findWithReferencesByIdIn(@Param("ids") Collection<Long> ids);
 
-    @Query("SELECT n FROM News n WHERE n.title LIKE %:query% OR n.content LIKE %:query% OR n.summary LIKE %:query%")
+    @Query("SELECT DISTINCT c.slug FROM News n JOIN n.category c WHERE n.id IN :ids")
+    List<String> findCategorySlugsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT t FROM News n JOIN n.tags t WHERE n.id IN :ids")
+    List<String> findTagNamesByIds(@Param("ids") Collection<Long> ids);
+
+    // Tags for a whole page in one statement instead of one lazy collection load per article
+    @Query("SELECT n.id, t FROM News n JOIN n.tags t WHERE n.id IN :ids")
+    List<Object[]> findTagsByNewsIds(@Param("ids") Collection<Long> ids);
+
+    // Bodies are stored compressed, so the fallback scan matches title and summary only
+    @EntityGraph(attributePaths = {"source", "category"})
+    @Query(value = "SELECT n FROM News n WHERE n.title LIKE %:query% OR n.summary LIKE %:query%",
+            countQuery = "SELECT COUNT(n) FROM News n WHERE n.title LIKE %:query% OR n.summary LIKE %:query%")
     Page<News> search(@Param("query") String query, Pageable pageable);
 
     @Query("SELECT n FROM News n JOIN n.tags t WHERE t = :tag")
@@ -30,8 +120,65 @@ public interface NewsRepository extends JpaRepository<News, Long> {
 
     List<News> findByPublishDateAfter(LocalDateTime date);
 
-    @Query(value = "SELECT n.* FROM news n JOIN news_tags t ON n.id = t.news_id " +
-            "WHERE t.tag IN (SELECT t2.tag FROM news_tags t2 WHERE t2.news_id = :newsId) " +
-            "AND n.id != :newsId GROUP BY n.id ORDER BY COUNT(t.tag) DESC LIMIT 5", nativeQuery = true)
-    List<News> findRelatedNews(@Param("newsId") Long newsId);
+    // List views read only the card columns; content, author fields and the source URL CLOB stay on disk
+    String CARD_SELECT = "SELECT new com.androidnews.dto.NewsDTO(n.id, n.title, n.summary, n.imageUrl, n.publishDate, " +
+            "s.name, s.logoUrl, c.name, c.slug, n.storyId) FROM News n JOIN n.source s JOIN n.category c ";
+
+    // The redundant publishDate <= bound turns the keyset OR into an index range scan
+    String AFTER_CURSOR = "n.publishDate <= :publishDate " +
+            "AND (n.publishDate < :publishDate OR (n.publishDate = :publishDate AND n.id < :id)) ";
+
+    String FEED_ORDER = "ORDER BY n.publishDate DESC, n.id DESC";
+
+    // Feeds show one card per story: lone articles and story roots, never the later duplicates
+    String STORY_LEAD = "(n.storyId IS NULL OR n.storyId = n.id) ";
+
+    // Offset pages show the same one card per story as the keyset feeds, and count the same way
+    @Query(value = CARD_SELECT + "WHERE " + STORY_LEAD,
+            countQuery = "SELECT COUNT(n) FROM News n WHERE " + STORY_LEAD)
+    Page<NewsDTO> findAllCards(Pageable pageable);
+
+    @Query(value = CARD_SELECT + "WHERE n.category = :category AND " + STORY_LEAD,
+            countQuery = "SELECT COUNT(n) FROM News n WHERE n.category = :category AND " + STORY_LEAD)
+    Page<NewsDTO> findCardsByCategory(@Param("category") Category category, Pageable pageable);
+
+    @Query(value = CARD_SELECT + "JOIN n.tags t WHERE t = :tag AND " + STORY_LEAD,
+            countQuery = "SELECT COUNT(n) FROM News n JOIN n.tags t WHERE t = :tag AND " + STORY_LEAD)
+    Page<NewsDTO> findCardsByTag(@Param("tag") String tag, Pageable pageable);
+
+    @Query(CARD_SELECT + "WHERE n.id IN :ids")
+    List<NewsDTO> findCardsByIds(@Param("ids") Collection<Long> ids);
+
+    // Keyset feeds: seek past (publishDate, id) of the last item served and never count
+    @Query(CARD_SELECT + "WHERE " + STORY_LEAD + FEED_ORDER)
+    List<NewsDTO> findFeed(Pageable pageable);
+
+    @Query(CARD_SELECT + "WHERE " + STORY_LEAD + "AND " + AFTER_CURSOR + FEED_ORDER)
+    List<NewsDTO> findFeedAfter(@Param("publishDate") LocalDateTime publishDate, @Param("id") Long id, Pageable pageable);
+
+    @Query(CARD_SELECT + "WHERE n.category = :category AND " + STORY_LEAD + FEED_ORDER)
+    List<NewsDTO> findCategoryFeed(@Param("category") Category category, Pageable pageable);
+
+    @Query(CARD_SELECT + "WHERE n.category = :category AND " + STORY_LEAD + "AND " + AFTER_CURSOR + FEED_ORDER)
+    List<NewsDTO> findCategoryFeedAfter(@Param("category") Category category, @Param("publishDate") LocalDateTime publishDate,
+                                       @Param("id") Long id, Pageable pageable);
+
+    @Query(CARD_SELECT + "JOIN n.tags t WHERE t = :tag AND " + STORY_LEAD + FEED_ORDER)
+    List<NewsDTO> findTagFeed(@Param("tag") String tag, Pageable pageable);
+
+    @Query(CARD_SELECT + "JOIN n.tags t WHERE t = :tag AND " + STORY_LEAD + "AND " + AFTER_CURSOR + FEED_ORDER)
+    List<NewsDTO> findTagFeedAfter(@Param("tag") String tag, @Param("publishDate") LocalDateTime publishDate,
+                                   @Param("id") Long id, Pageable pageable);
+
+    // Every source's article of a story, earliest first; the root itself has storyId set once it has duplicates
+    @Query(CARD_SELECT + "WHERE n.storyId = :storyId OR n.id = :storyId ORDER BY n.publishDate ASC, n.id ASC")
+    List<NewsDTO> findStoryCards(@Param("storyId") Long storyId);
+
+    // Related cards for the detail view, precomputed by RelatedNewsService
+    @Query(CARD_SELECT + ", RelatedNews r WHERE r.newsId = :newsId AND r.relatedId = n.id " +
+            "ORDER BY r.score DESC, r.relatedId DESC")
+    List<NewsDTO> findRelatedCards(@Param("newsId") Long newsId);
+
+    @Query("SELECT n.id, n.category.id FROM News n ORDER BY n.id DESC")
+    List<Object[]> findRecentIdsWithCategory(Pageable pageable);
 }
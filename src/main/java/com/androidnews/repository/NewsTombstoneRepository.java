@@ -0,0 +1,20 @@
+package com.androidnews.repository;
+
+import com.androidnews.model.NewsTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface NewsTombstoneRepository extends JpaRepository<NewsTombstone, Long> {
+
+    @Query("SELECT t FROM NewsTombstone t WHERE t.seq > :since ORDER BY t.seq")
+    List<NewsTombstone> findChanges(@Param("since") long since, Pageable pageable);
+
+    @Query("SELECT MAX(t.seq) FROM NewsTombstone t")
+    Long findMaxSeq();
+}
@@ -0,0 +1,22 @@
+package com.androidnews.repository;
+
+import com.androidnews.model.RelatedNews;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RelatedNewsRepository extends JpaRepository<RelatedNews, RelatedNews.Key> {
+
+    @Modifying
+    @Query("DELETE FROM RelatedNews r WHERE r.newsId = :newsId OR r.relatedId = :newsId")
+    int deleteByArticle(@Param("newsId") Long newsId);
+
+    @Query("SELECT r FROM RelatedNews r WHERE r.newsId IN :newsIds")
+    List<RelatedNews> findByNewsIds(@Param("newsIds") Collection<Long> newsIds);
+}
@@ -0,0 +1,19 @@
+package com.androidnews.repository;
+
+import com.androidnews.model.SyncSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface SyncSequenceRepository extends JpaRepository<SyncSequence, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SyncSequence s WHERE s.name = :name")
+    Optional<SyncSequence> findForUpdate(@Param("name") String name);
+}
@@ -1,22 +1,226 @@
 package com.androidnews.scheduler;
 
+import com.androidnews.dto.CrawlReport;
+import com.androidnews.dto.CrawlScheduleDTO;
+import com.androidnews.service.CrawlLeaseService;
 import com.androidnews.service.CrawlerService;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Each source gets its own next-run time, kept in a queue ordered by that time. After every run the source's
+// publish rate is re-estimated from the new items it produced, and the interval is set so a poll finds about
+// target-items-per-poll new articles, within the configured bounds
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class CrawlerScheduler {
 
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+
     private final CrawlerService crawlerService;
+    private final CrawlLeaseService crawlLeaseService;
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+    private final long initialIntervalMillis;
+    private final double targetItemsPerPoll;
+    private final double smoothing;
+
+    private final Map<String, SourceSchedule> schedules = new LinkedHashMap<>();
+    private final PriorityQueue<SourceSchedule> queue =
+            new PriorityQueue<>(Comparator.comparing((SourceSchedule schedule) -> schedule.nextRunAt));
+
+    public CrawlerScheduler(CrawlerService crawlerService,
+                            CrawlLeaseService crawlLeaseService,
+                            @Value("${crawler.schedule.min-interval-minutes:5}") long minIntervalMinutes,
+                            @Value("${crawler.schedule.max-interval-minutes:120}") long maxIntervalMinutes,
+                            @Value("${crawler.schedule.initial-interval-minutes:60}") long initialIntervalMinutes,
+                            @Value("${crawler.schedule.initial-delay-seconds:60}") long initialDelaySeconds,
+                            @Value("${crawler.schedule.target-items-per-poll:2}") double targetItemsPerPoll,
+                            @Value("${crawler.schedule.smoothing:0.3}") double smoothing) {
+        this.crawlerService = crawlerService;
+        this.crawlLeaseService = crawlLeaseService;
+        this.minIntervalMillis = Duration.ofMinutes(minIntervalMinutes).toMillis();
+        this.maxIntervalMillis = Duration.ofMinutes(maxIntervalMinutes).toMillis();
+        this.initialIntervalMillis = clamp(Duration.ofMinutes(initialIntervalMinutes).toMillis());
+        this.targetItemsPerPoll = targetItemsPerPoll;
+        this.smoothing = smoothing;
+
+        LocalDateTime firstRun = LocalDateTime.now().plusSeconds(initialDelaySeconds);
+        for (String source : crawlerService.getSourceNames()) {
+            SourceSchedule schedule = new SourceSchedule(source, firstRun, initialIntervalMillis);
+            schedules.put(source, schedule);
+            queue.add(schedule);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${crawler.schedule.tick-ms:10000}")
+    public void runDueSources() {
+        List<String> due = new ArrayList<>();
+        List<String> leasedElsewhere = new ArrayList<>();
+        for (String source : pollDue(LocalDateTime.now())) {
+            if (crawlLeaseService.tryAcquire(source)) {
+                due.add(source);
+            } else {
+                leasedElsewhere.add(source);
+            }
+        }
+        if (!leasedElsewhere.isEmpty()) {
+            // Another node owns these; check back once its lease could have expired
+            deferLeased(leasedElsewhere);
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        log.info("Starting scheduled crawling of {}", due);
+        LocalDateTime startedAt = LocalDateTime.now();
+        CrawlReport report = null;
+        try {
+            report = crawlerService.crawlSources(due);
+        } catch (RuntimeException e) {
+            log.error("Scheduled crawling of {} failed: {}", due, e.getMessage(), e);
+        }
+
+        synchronized (this) {
+            for (String source : due) {
+                SourceSchedule schedule = schedules.get(source);
+                // A failed run says nothing about the publish rate, so it only moves the source back in line
+                Integer saved = report != null ? report.getSavedBySource().get(source) : null;
+                if (saved != null) {
+                    learn(schedule, saved, startedAt);
+                }
+                schedule.running = false;
+                schedule.leasedElsewhere = false;
+                if (!schedule.overridden) {
+                    schedule.nextRunAt = LocalDateTime.now().plus(Duration.ofMillis(schedule.intervalMillis));
+                }
+                queue.add(schedule);
+            }
+        }
+    }
+
+    private synchronized void deferLeased(List<String> sources) {
+        for (String source : sources) {
+            SourceSchedule schedule = schedules.get(source);
+            schedule.running = false;
+            schedule.leasedElsewhere = true;
+            if (!schedule.overridden) {
+                schedule.nextRunAt = LocalDateTime.now().plus(crawlLeaseService.getTtl());
+            }
+            queue.add(schedule);
+        }
+    }
+
+    public synchronized List<CrawlScheduleDTO> getSchedule() {
+        List<SourceSchedule> ordered = new ArrayList<>(schedules.values());
+        ordered.sort(queue.comparator());
+        List<CrawlScheduleDTO> result = new ArrayList<>();
+        for (SourceSchedule schedule : ordered) {
+            result.add(toDTO(schedule));
+        }
+        return result;
+    }
+
+    // Pins the next run of one source; the learned interval takes over again after that run
+    public synchronized Optional<CrawlScheduleDTO> overrideNextRun(String source, LocalDateTime nextRunAt) {
+        SourceSchedule schedule = schedules.get(source);
+        if (schedule == null) {
+            return Optional.empty();
+        }
+        if (!schedule.running) {
+            queue.remove(schedule);
+        }
+        schedule.nextRunAt = nextRunAt;
+        schedule.overridden = true;
+        if (!schedule.running) {
+            queue.add(schedule);
+        }
+        return Optional.of(toDTO(schedule));
+    }
+
+    private synchronized List<String> pollDue(LocalDateTime now) {
+        List<String> due = new ArrayList<>();
+        while (!queue.isEmpty() && !queue.peek().nextRunAt.isAfter(now)) {
+            SourceSchedule schedule = queue.poll();
+            schedule.running = true;
+            schedule.overridden = false;
+            due.add(schedule.source);
+        }
+        return due;
+    }
+
+    // Items and elapsed hours are smoothed separately and divided, so a long gap between runs weighs in
+    // proportion to the time it covers; the first run only sets the baseline because it also sees the backlog
+    private void learn(SourceSchedule schedule, int newItems, LocalDateTime ranAt) {
+        if (schedule.lastRunAt != null) {
+            double hours = Math.max(Duration.between(schedule.lastRunAt, ranAt).toMillis(), 1000) / (double) MILLIS_PER_HOUR;
+            if (schedule.smoothedHours == 0) {
+                schedule.smoothedItems = newItems;
+                schedule.smoothedHours = hours;
+            } else {
+                schedule.smoothedItems = smoothing * newItems + (1 - smoothing) * schedule.smoothedItems;
+                schedule.smoothedHours = smoothing * hours + (1 - smoothing) * schedule.smoothedHours;
+            }
+            schedule.intervalMillis = nextInterval(Math.max(schedule.itemsPerHour(), newItems / hours), schedule.intervalMillis);
+        }
+        schedule.lastRunAt = ranAt;
+        schedule.lastNewItems = newItems;
+        schedule.runs++;
+    }
+
+    // The latest run's own rate wins when it is higher, so a burst shortens the interval at once while a lull
+    // only lengthens it as the smoothed rate decays
+    private long nextInterval(double itemsPerHour, long currentIntervalMillis) {
+        long target = itemsPerHour > 0
+                ? (long) (targetItemsPerPoll / itemsPerHour * MILLIS_PER_HOUR)
+                : maxIntervalMillis;
+        // Back off at most twice as far per run, so one quiet poll does not park a busy source at the maximum
+        return clamp(Math.min(target, currentIntervalMillis * 2));
+    }
+
+    private long clamp(long intervalMillis) {
+        return Math.max(minIntervalMillis, Math.min(maxIntervalMillis, intervalMillis));
+    }
+
+    private CrawlScheduleDTO toDTO(SourceSchedule schedule) {
+        return new CrawlScheduleDTO(
+                schedule.source,
+                schedule.nextRunAt,
+                schedule.intervalMillis / 1000,
+                schedule.itemsPerHour(),
+                schedule.lastRunAt,
+                schedule.lastNewItems,
+                schedule.runs,
+                schedule.overridden,
+                schedule.leasedElsewhere
+        );
+    }
+
+    private static class SourceSchedule {
+        private final String source;
+        private LocalDateTime nextRunAt;
+        private long intervalMillis;
+        private double smoothedItems;
+        private double smoothedHours;
+        private LocalDateTime lastRunAt;
+        private int lastNewItems;
+        private long runs;
+        private boolean overridden;
+        private boolean running;
+        private boolean leasedElsewhere;
+
+        SourceSchedule(String source, LocalDateTime nextRunAt, long intervalMillis) {
+            this.source = source;
+            this.nextRunAt = nextRunAt;
+            this.intervalMillis = intervalMillis;
+        }
 
-    // Run every hour
-    @Scheduled(cron = "0 0 * * * ?")
-    public void scheduledCrawling() {
-        log.info("Starting scheduled news crawling");
-        crawlerService.crawlAllSources();
+        double itemsPerHour() {
+            return smoothedHours > 0 ? smoothedItems / smoothedHours : 0;
+        }
     }
 }
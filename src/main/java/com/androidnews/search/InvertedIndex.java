@@ -0,0 +1,348 @@
+package com.androidnews.search;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class InvertedIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float SUMMARY_WEIGHT = 1.5f;
+    private static final float CONTENT_WEIGHT = 1.0f;
+    // Positions of consecutive fields are separated so phrases never match across a field boundary
+    private static final int FIELD_GAP = 16;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> docByNewsId = new HashMap<>();
+    private long[] newsIds = new long[1024];
+    private int[] summaryStarts = new int[1024];
+    private int[] contentStarts = new int[1024];
+    private float[] weightedLengths = new float[1024];
+    private final BitSet deleted = new BitSet();
+    private int docCount;
+    private int liveDocs;
+    private double totalWeightedLength;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void add(long newsId, String title, String summary, String content) {
+        // Tokenize outside the lock; only the posting updates need exclusive access
+        List<SearchTokenizer.Token> titleTokens = SearchTokenizer.tokenize(title);
+        List<SearchTokenizer.Token> summaryTokens = SearchTokenizer.tokenize(summary);
+        List<SearchTokenizer.Token> contentTokens = SearchTokenizer.tokenize(content);
+
+        lock.writeLock().lock();
+        try {
+            addLocked(newsId, titleTokens, summaryTokens, contentTokens);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addLocked(long newsId, List<SearchTokenizer.Token> titleTokens,
+                           List<SearchTokenizer.Token> summaryTokens, List<SearchTokenizer.Token> contentTokens) {
+        removeLocked(newsId);
+
+        int doc = docCount++;
+        ensureCapacity(doc + 1);
+        int summaryStart = titleTokens.size() + FIELD_GAP;
+        int contentStart = summaryStart + summaryTokens.size() + FIELD_GAP;
+        newsIds[doc] = newsId;
+        summaryStarts[doc] = summaryStart;
+        contentStarts[doc] = contentStart;
+        weightedLengths[doc] = TITLE_WEIGHT * titleTokens.size()
+                + SUMMARY_WEIGHT * summaryTokens.size()
+                + CONTENT_WEIGHT * contentTokens.size();
+
+        Map<String, IntList> positions = new HashMap<>();
+        collectPositions(positions, titleTokens, 0);
+        collectPositions(positions, summaryTokens, summaryStart);
+        collectPositions(positions, contentTokens, contentStart);
+        for (Map.Entry<String, IntList> entry : positions.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(doc, entry.getValue().toArray());
+        }
+
+        docByNewsId.put(newsId, doc);
+        liveDocs++;
+        totalWeightedLength += weightedLengths[doc];
+    }
+
+    public void remove(long newsId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(newsId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(long newsId) {
+        Integer doc = docByNewsId.remove(newsId);
+        if (doc != null) {
+            deleted.set(doc);
+            liveDocs--;
+            totalWeightedLength -= weightedLengths[doc];
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public SearchHits search(String query, int offset, int limit) {
+        List<List<String>> clauses = parseQuery(query);
+        lock.readLock().lock();
+        try {
+            return searchLocked(clauses, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private SearchHits searchLocked(List<List<String>> clauses, int offset, int limit) {
+        if (clauses.isEmpty() || liveDocs == 0) {
+            return new SearchHits(Collections.emptyList(), 0);
+        }
+
+        Postings rarest = null;
+        Map<String, Postings> termPostings = new HashMap<>();
+        for (List<String> clause : clauses) {
+            for (String term : clause) {
+                Postings p = postings.get(term);
+                if (p == null) {
+                    return new SearchHits(Collections.emptyList(), 0);
+                }
+                termPostings.put(term, p);
+                if (rarest == null || p.size < rarest.size) {
+                    rarest = p;
+                }
+            }
+        }
+
+        float avgLength = (float) (totalWeightedLength / liveDocs);
+        Comparator<ScoredDoc> ranking = (a, b) -> a.score != b.score
+                ? Float.compare(b.score, a.score)
+                : Long.compare(newsIds[b.doc], newsIds[a.doc]);
+        // Keep only the best offset + limit hits in a min-heap instead of sorting every match
+        int wanted = offset + limit;
+        PriorityQueue<ScoredDoc> top = new PriorityQueue<>(Math.max(1, wanted), ranking.reversed());
+        int total = 0;
+        for (int i = 0; i < rarest.size; i++) {
+            int doc = rarest.docs[i];
+            if (deleted.get(doc) || !matchesAll(doc, clauses, termPostings)) {
+                continue;
+            }
+            total++;
+            if (wanted == 0) {
+                continue;
+            }
+            float score = 0;
+            for (Map.Entry<String, Postings> entry : termPostings.entrySet()) {
+                score += bm25(doc, entry.getValue(), avgLength);
+            }
+            ScoredDoc candidate = new ScoredDoc(doc, score);
+            if (top.size() < wanted) {
+                top.add(candidate);
+            } else if (ranking.compare(candidate, top.peek()) < 0) {
+                top.poll();
+                top.add(candidate);
+            }
+        }
+
+        List<ScoredDoc> ranked = new ArrayList<>(top);
+        ranked.sort(ranking);
+        List<Long> ids = new ArrayList<>();
+        for (int i = offset; i < ranked.size(); i++) {
+            ids.add(newsIds[ranked.get(i).doc]);
+        }
+        return new SearchHits(ids, total);
+    }
+
+    // Each clause is a term sequence that must appear at consecutive positions; all clauses must match
+    static List<List<String>> parseQuery(String query) {
+        List<List<String>> clauses = new ArrayList<>();
+        if (query == null) {
+            return clauses;
+        }
+        String[] parts = query.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            List<SearchTokenizer.Token> tokens = SearchTokenizer.tokenize(parts[i]);
+            if (tokens.isEmpty()) {
+                continue;
+            }
+            boolean quoted = i % 2 == 1 && i < parts.length - 1;
+            if (quoted) {
+                List<String> phrase = new ArrayList<>();
+                tokens.forEach(token -> phrase.add(token.getTerm()));
+                clauses.add(phrase);
+                continue;
+            }
+            // Outside quotes, a CJK run is an implicit phrase of its bigrams; Latin words stand alone
+            List<String> current = new ArrayList<>();
+            int currentRun = -1;
+            for (SearchTokenizer.Token token : tokens) {
+                if (!current.isEmpty() && token.getRun() != currentRun) {
+                    clauses.add(current);
+                    current = new ArrayList<>();
+                }
+                current.add(token.getTerm());
+                currentRun = token.getRun();
+            }
+            clauses.add(current);
+        }
+        return clauses;
+    }
+
+    private boolean matchesAll(int doc, List<List<String>> clauses, Map<String, Postings> termPostings) {
+        for (List<String> clause : clauses) {
+            int[] first = termPostings.get(clause.get(0)).positions(doc);
+            if (first == null) {
+                return false;
+            }
+            if (clause.size() == 1) {
+                continue;
+            }
+            int[][] rest = new int[clause.size() - 1][];
+            for (int t = 1; t < clause.size(); t++) {
+                rest[t - 1] = termPostings.get(clause.get(t)).positions(doc);
+                if (rest[t - 1] == null) {
+                    return false;
+                }
+            }
+            if (!containsPhrase(first, rest)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsPhrase(int[] first, int[][] rest) {
+        for (int start : first) {
+            boolean found = true;
+            for (int t = 0; t < rest.length && found; t++) {
+                found = Arrays.binarySearch(rest[t], start + t + 1) >= 0;
+            }
+            if (found) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private float bm25(int doc, Postings termPostings, float avgLength) {
+        int[] positions = termPostings.positions(doc);
+        if (positions == null) {
+            return 0;
+        }
+        float tf = 0;
+        for (int position : positions) {
+            if (position < summaryStarts[doc]) {
+                tf += TITLE_WEIGHT;
+            } else if (position < contentStarts[doc]) {
+                tf += SUMMARY_WEIGHT;
+            } else {
+                tf += CONTENT_WEIGHT;
+            }
+        }
+        int df = termPostings.size;
+        double idf = Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+        double norm = K1 * (1 - B + B * weightedLengths[doc] / avgLength);
+        return (float) (idf * tf * (K1 + 1) / (tf + norm));
+    }
+
+    private static void collectPositions(Map<String, IntList> positions, List<SearchTokenizer.Token> tokens, int offset) {
+        for (int i = 0; i < tokens.size(); i++) {
+            positions.computeIfAbsent(tokens.get(i).getTerm(), term -> new IntList()).add(offset + i);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > newsIds.length) {
+            int newLength = Math.max(capacity, newsIds.length * 2);
+            newsIds = Arrays.copyOf(newsIds, newLength);
+            summaryStarts = Arrays.copyOf(summaryStarts, newLength);
+            contentStarts = Arrays.copyOf(contentStarts, newLength);
+            weightedLengths = Arrays.copyOf(weightedLengths, newLength);
+        }
+    }
+
+    public static class SearchHits {
+        private final List<Long> newsIds;
+        private final int total;
+
+        public SearchHits(List<Long> newsIds, int total) {
+            this.newsIds = newsIds;
+            this.total = total;
+        }
+
+        public List<Long> getNewsIds() {
+            return newsIds;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+
+    private static class ScoredDoc {
+        private final int doc;
+        private final float score;
+
+        ScoredDoc(int doc, float score) {
+            this.doc = doc;
+            this.score = score;
+        }
+    }
+
+    // Doc numbers are appended in increasing order, so each posting list stays sorted for binary search
+    private static class Postings {
+        private int[] docs = new int[4];
+        private int[][] positions = new int[4][];
+        private int size;
+
+        void add(int doc, int[] docPositions) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            docs[size] = doc;
+            positions[size] = docPositions;
+            size++;
+        }
+
+        int[] positions(int doc) {
+            int index = Arrays.binarySearch(docs, 0, size, doc);
+            return index >= 0 ? positions[index] : null;
+        }
+    }
+
+    private static class IntList {
+        private int[] values = new int[2];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
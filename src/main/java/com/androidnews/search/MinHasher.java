@@ -0,0 +1,114 @@
+package com.androidnews.search;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// MinHash over word shingles: the share of positions where two signatures agree estimates the Jaccard
+// similarity of their shingle sets, so rewrites of the same wire story score high despite edited wording
+public final class MinHasher {
+
+    // 20 bands of 5 rows put the LSH candidate threshold near a Jaccard similarity of 0.55
+    public static final int BANDS = 20;
+    public static final int ROWS = 5;
+    public static final int SIZE = BANDS * ROWS;
+    public static final int BYTES = SIZE * Integer.BYTES;
+
+    private static final int SHINGLE_WIDTH = 3;
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+    private static final long[] MULTIPLIERS = new long[SIZE];
+    private static final long[] OFFSETS = new long[SIZE];
+
+    static {
+        // Fixed seed: stored signatures must stay comparable across restarts and nodes
+        SplittableRandom random = new SplittableRandom(0x5EED_57A7L);
+        for (int i = 0; i < SIZE; i++) {
+            MULTIPLIERS[i] = random.nextLong() | 1;
+            OFFSETS[i] = random.nextLong();
+        }
+    }
+
+    private MinHasher() {
+    }
+
+    // Returns null when the text has nothing to fingerprint
+    public static int[] signature(String text) {
+        List<SearchTokenizer.Token> tokens = SearchTokenizer.tokenize(text);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        long[] termHashes = new long[tokens.size()];
+        for (int i = 0; i < termHashes.length; i++) {
+            termHashes[i] = hash(tokens.get(i).getTerm());
+        }
+
+        int[] signature = new int[SIZE];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        // Texts shorter than one shingle fall back to whatever words they have
+        int width = Math.min(SHINGLE_WIDTH, termHashes.length);
+        for (int start = 0; start + width <= termHashes.length; start++) {
+            long shingle = 0;
+            for (int k = 0; k < width; k++) {
+                shingle = shingle * GOLDEN + termHashes[start + k];
+            }
+            shingle = mix(shingle);
+            for (int i = 0; i < SIZE; i++) {
+                int value = (int) ((MULTIPLIERS[i] * shingle + OFFSETS[i]) >>> 32);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    public static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < SIZE; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / SIZE;
+    }
+
+    static long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int row = band * ROWS, end = row + ROWS; row < end; row++) {
+            key = key * GOLDEN + signature[row];
+        }
+        return mix(key);
+    }
+
+    public static byte[] toBytes(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(BYTES);
+        buffer.asIntBuffer().put(signature);
+        return buffer.array();
+    }
+
+    public static int[] fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != BYTES) {
+            return null;
+        }
+        int[] signature = new int[SIZE];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(signature);
+        return signature;
+    }
+
+    // 64-bit FNV-1a; String.hashCode is too narrow once shingles combine three terms
+    private static long hash(String term) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < term.length(); i++) {
+            hash ^= term.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,195 @@
+package com.androidnews.search;
+
+import java.util.*;
+
+public class RelatedNewsIndex {
+
+    private static final int TAG_WEIGHT = 2;
+    private static final int CATEGORY_WEIGHT = 1;
+
+    private static final Comparator<Match> BEST_FIRST = Comparator
+            .comparingInt(Match::getScore).reversed()
+            .thenComparing(Comparator.comparingLong(Match::getNewsId).reversed());
+
+    // Postings keep only the most recent articles per tag and category, which bounds both memory and
+    // the work per new article; related lists favour recent coverage anyway
+    private final int postingLimit;
+    private final Map<String, Posting> byTag = new HashMap<>();
+    private final Map<Long, Posting> byCategory = new HashMap<>();
+
+    public RelatedNewsIndex(int postingLimit) {
+        this.postingLimit = postingLimit;
+    }
+
+    // Scores the article against the indexed ones, returns the best matches and then adds the article itself
+    public synchronized List<Match> add(long newsId, Long categoryId, Collection<String> tags, int limit) {
+        List<Match> matches = match(newsId, categoryId, tags, limit);
+        index(newsId, categoryId, tags);
+        return matches;
+    }
+
+    // Best matches among the indexed articles (two points per shared tag, one for the same category)
+    public synchronized List<Match> match(long newsId, Long categoryId, Collection<String> tags, int limit) {
+        List<Posting> postings = new ArrayList<>();
+        int[] weights = new int[tags.size() + 1];
+        int candidates = 0;
+        for (String tag : tags) {
+            Posting posting = byTag.get(tag);
+            if (posting != null) {
+                weights[postings.size()] = TAG_WEIGHT;
+                postings.add(posting);
+                candidates += posting.size;
+            }
+        }
+        Posting categoryPosting = categoryId == null ? null : byCategory.get(categoryId);
+        if (categoryPosting != null) {
+            weights[postings.size()] = CATEGORY_WEIGHT;
+            postings.add(categoryPosting);
+            candidates += categoryPosting.size;
+        }
+
+        ScoreTable scores = new ScoreTable(candidates);
+        for (int i = 0; i < postings.size(); i++) {
+            Posting posting = postings.get(i);
+            for (int j = 0; j < posting.size; j++) {
+                long id = posting.get(j);
+                if (id != newsId) {
+                    scores.add(id, weights[i]);
+                }
+            }
+        }
+
+        PriorityQueue<Match> top = new PriorityQueue<>(BEST_FIRST.reversed());
+        for (int slot = 0; slot < scores.keys.length; slot++) {
+            if (scores.scores[slot] == 0) {
+                continue;
+            }
+            Match match = new Match(scores.keys[slot], scores.scores[slot]);
+            if (top.size() < limit) {
+                top.add(match);
+            } else if (limit > 0 && BEST_FIRST.compare(match, top.peek()) < 0) {
+                top.poll();
+                top.add(match);
+            }
+        }
+        List<Match> matches = new ArrayList<>(top);
+        matches.sort(BEST_FIRST);
+        return matches;
+    }
+
+    // Merges match lists of disjoint indexes into one ranking
+    public static List<Match> best(List<Match> a, List<Match> b, int limit) {
+        List<Match> merged = new ArrayList<>(a.size() + b.size());
+        merged.addAll(a);
+        merged.addAll(b);
+        merged.sort(BEST_FIRST);
+        return merged.size() > limit ? merged.subList(0, limit) : merged;
+    }
+
+    public synchronized void index(long newsId, Long categoryId, Collection<String> tags) {
+        for (String tag : tags) {
+            byTag.computeIfAbsent(tag, key -> new Posting(postingLimit)).add(newsId);
+        }
+        if (categoryId != null) {
+            byCategory.computeIfAbsent(categoryId, key -> new Posting(postingLimit)).add(newsId);
+        }
+    }
+
+    // Deletions are rare, so every posting is scanned rather than keeping a reverse map per article
+    public synchronized void remove(long newsId) {
+        for (Posting posting : byTag.values()) {
+            posting.remove(newsId);
+        }
+        for (Posting posting : byCategory.values()) {
+            posting.remove(newsId);
+        }
+    }
+
+    public synchronized int postingCount() {
+        int count = 0;
+        for (Posting posting : byTag.values()) {
+            count += posting.size;
+        }
+        for (Posting posting : byCategory.values()) {
+            count += posting.size;
+        }
+        return count;
+    }
+
+    // Ring buffer of the most recent article ids
+    private static class Posting {
+        private final long[] ids;
+        private int start;
+        private int size;
+
+        Posting(int limit) {
+            this.ids = new long[limit];
+        }
+
+        void add(long id) {
+            if (size < ids.length) {
+                ids[(start + size++) % ids.length] = id;
+            } else {
+                ids[start] = id;
+                start = (start + 1) % ids.length;
+            }
+        }
+
+        long get(int i) {
+            return ids[(start + i) % ids.length];
+        }
+
+        // Later ids move up one place, so the ring stays in insertion order
+        void remove(long id) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                long current = get(i);
+                if (current != id) {
+                    ids[(start + kept++) % ids.length] = current;
+                }
+            }
+            size = kept;
+        }
+    }
+
+    // Open-addressing id -> score table sized for the candidate count, so scoring does not box every id
+    private static class ScoreTable {
+        private final long[] keys;
+        private final int[] scores;
+        private final int mask;
+
+        ScoreTable(int candidates) {
+            int capacity = Integer.highestOneBit(Math.max(2, candidates) * 2 - 1) << 1;
+            this.keys = new long[capacity];
+            this.scores = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        void add(long id, int weight) {
+            int slot = Long.hashCode(id * 0x9E3779B97F4A7C15L) & mask;
+            while (scores[slot] != 0 && keys[slot] != id) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = id;
+            scores[slot] += weight;
+        }
+    }
+
+    public static class Match {
+        private final long newsId;
+        private final int score;
+
+        public Match(long newsId, int score) {
+            this.newsId = newsId;
+            this.score = score;
+        }
+
+        public long getNewsId() {
+            return newsId;
+        }
+
+        public int getScore() {
+            return score;
+        }
+    }
+}
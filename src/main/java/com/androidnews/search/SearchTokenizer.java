@@ -0,0 +1,86 @@
+package com.androidnews.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SearchTokenizer {
+
+    public static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        // NFKC folds full-width Latin letters and digits into their ASCII forms
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        int length = normalized.length();
+        int run = 0;
+        int i = 0;
+        while (i < length) {
+            int codePoint = normalized.codePointAt(i);
+            if (isCjk(codePoint)) {
+                int start = i;
+                List<String> chars = new ArrayList<>();
+                while (i < length && isCjk(normalized.codePointAt(i))) {
+                    int cp = normalized.codePointAt(i);
+                    chars.add(new String(Character.toChars(cp)));
+                    i += Character.charCount(cp);
+                }
+                if (chars.size() == 1) {
+                    tokens.add(new Token(chars.get(0), true, run));
+                } else {
+                    for (int c = 0; c + 1 < chars.size(); c++) {
+                        tokens.add(new Token(chars.get(c) + chars.get(c + 1), true, run));
+                    }
+                }
+                run++;
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                StringBuilder word = new StringBuilder();
+                while (i < length) {
+                    int cp = normalized.codePointAt(i);
+                    if (!Character.isLetterOrDigit(cp) || isCjk(cp)) {
+                        break;
+                    }
+                    word.appendCodePoint(Character.toLowerCase(cp));
+                    i += Character.charCount(cp);
+                }
+                tokens.add(new Token(word.toString(), false, run++));
+            } else {
+                i += Character.charCount(codePoint);
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    public static class Token {
+        private final String term;
+        private final boolean cjk;
+        private final int run;
+
+        Token(String term, boolean cjk, int run) {
+            this.term = term;
+            this.cjk = cjk;
+            this.run = run;
+        }
+
+        public String getTerm() {
+            return term;
+        }
+
+        public boolean isCjk() {
+            return cjk;
+        }
+
+        public int getRun() {
+            return run;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.androidnews.search;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Banded LSH over MinHash signatures: only articles sharing at least one band bucket are compared, so a lookup
+// touches a handful of candidates instead of every stored signature
+public class StoryIndex {
+
+    // A bucket this crowded holds boilerplate rather than one story; only its newest entries are compared
+    private static final int BUCKET_SCAN_LIMIT = 64;
+
+    // Open-addressed bucket table: band key -> newest doc + 1 (0 marks an empty slot). Older docs of the same
+    // bucket are reached through chain links, one per doc and band, so buckets cost no objects
+    private long[] bucketKeys = new long[4096];
+    private int[] bucketHeads = new int[4096];
+    private int bucketCount;
+    private int[] chain = new int[1024 * MinHasher.BANDS];
+
+    private final Map<Long, Integer> docByNewsId = new HashMap<>();
+    private long[] newsIds = new long[1024];
+    private long[] storyIds = new long[1024];
+    private long[] publishedSeconds = new long[1024];
+    private int[] signatures = new int[1024 * MinHasher.SIZE];
+    private final BitSet deleted = new BitSet();
+    private int docCount;
+    private int liveDocs;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void add(long newsId, long storyId, long publishedSecond, int[] signature) {
+        long[] keys = bandKeys(signature);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(newsId);
+
+            int doc = docCount++;
+            ensureCapacity(doc + 1);
+            newsIds[doc] = newsId;
+            storyIds[doc] = storyId;
+            publishedSeconds[doc] = publishedSecond;
+            System.arraycopy(signature, 0, signatures, doc * MinHasher.SIZE, MinHasher.SIZE);
+            for (int band = 0; band < keys.length; band++) {
+                int slot = slotOf(keys[band]);
+                if (bucketHeads[slot] == 0) {
+                    bucketKeys[slot] = keys[band];
+                    bucketCount++;
+                }
+                chain[doc * MinHasher.BANDS + band] = bucketHeads[slot];
+                bucketHeads[slot] = doc + 1;
+                if (bucketCount * 2 > bucketKeys.length) {
+                    resizeBuckets();
+                }
+            }
+            docByNewsId.put(newsId, doc);
+            liveDocs++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Chain entries of removed articles stay behind and are skipped through the deleted set
+    public void remove(long newsId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(newsId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(long newsId) {
+        Integer doc = docByNewsId.remove(newsId);
+        if (doc != null) {
+            deleted.set(doc);
+            liveDocs--;
+        }
+    }
+
+    // Mirrors the database rule when a story's root is deleted: the lowest remaining id leads the story
+    public void promoteStory(long storyId) {
+        lock.writeLock().lock();
+        try {
+            long root = Long.MAX_VALUE;
+            for (int doc = 0; doc < docCount; doc++) {
+                if (!deleted.get(doc) && storyIds[doc] == storyId) {
+                    root = Math.min(root, newsIds[doc]);
+                }
+            }
+            for (int doc = 0; doc < docCount; doc++) {
+                if (!deleted.get(doc) && storyIds[doc] == storyId) {
+                    storyIds[doc] = root;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Best match published within windowSeconds of the probe and at least threshold similar, or null
+    public Match findBest(int[] signature, long publishedSecond, long windowSeconds, double threshold) {
+        long[] keys = bandKeys(signature);
+        int required = (int) Math.ceil(threshold * MinHasher.SIZE);
+
+        lock.readLock().lock();
+        try {
+            Set<Integer> seen = new HashSet<>();
+            int bestDoc = -1;
+            int bestEqual = required - 1;
+            for (int band = 0; band < keys.length; band++) {
+                int slot = slotOf(keys[band]);
+                int scanned = 0;
+                for (int entry = bucketHeads[slot]; entry != 0 && scanned < BUCKET_SCAN_LIMIT;
+                     entry = chain[(entry - 1) * MinHasher.BANDS + band], scanned++) {
+                    int doc = entry - 1;
+                    if (deleted.get(doc) || !seen.add(doc)
+                            || Math.abs(publishedSeconds[doc] - publishedSecond) > windowSeconds) {
+                        continue;
+                    }
+                    int equal = equalPositions(signature, doc);
+                    if (equal > bestEqual) {
+                        bestEqual = equal;
+                        bestDoc = doc;
+                    }
+                }
+            }
+            return bestDoc < 0 ? null
+                    : new Match(newsIds[bestDoc], storyIds[bestDoc], (double) bestEqual / MinHasher.SIZE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int bucketCount() {
+        lock.readLock().lock();
+        try {
+            return bucketCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int equalPositions(int[] signature, int doc) {
+        int equal = 0;
+        for (int i = 0, offset = doc * MinHasher.SIZE; i < MinHasher.SIZE; i++, offset++) {
+            if (signatures[offset] == signature[i]) {
+                equal++;
+            }
+        }
+        return equal;
+    }
+
+    // Linear probing; band keys are already mixed, so the low bits index the table directly
+    private int slotOf(long key) {
+        int mask = bucketKeys.length - 1;
+        int slot = (int) key & mask;
+        while (bucketHeads[slot] != 0 && bucketKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resizeBuckets() {
+        long[] oldKeys = bucketKeys;
+        int[] oldHeads = bucketHeads;
+        bucketKeys = new long[oldKeys.length * 2];
+        bucketHeads = new int[oldHeads.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldHeads[i] != 0) {
+                int slot = slotOf(oldKeys[i]);
+                bucketKeys[slot] = oldKeys[i];
+                bucketHeads[slot] = oldHeads[i];
+            }
+        }
+    }
+
+    private static long[] bandKeys(int[] signature) {
+        long[] keys = new long[MinHasher.BANDS];
+        for (int band = 0; band < MinHasher.BANDS; band++) {
+            keys[band] = MinHasher.bandKey(signature, band);
+        }
+        return keys;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > newsIds.length) {
+            int newLength = Math.max(capacity, newsIds.length * 2);
+            newsIds = Arrays.copyOf(newsIds, newLength);
+            storyIds = Arrays.copyOf(storyIds, newLength);
+            publishedSeconds = Arrays.copyOf(publishedSeconds, newLength);
+            signatures = Arrays.copyOf(signatures, newLength * MinHasher.SIZE);
+            chain = Arrays.copyOf(chain, newLength * MinHasher.BANDS);
+        }
+    }
+
+    public static class Match {
+        private final long newsId;
+        private final long storyId;
+        private final double similarity;
+
+        public Match(long newsId, long storyId, double similarity) {
+            this.newsId = newsId;
+            this.storyId = storyId;
+            this.similarity = similarity;
+        }
+
+        public long getNewsId() {
+            return newsId;
+        }
+
+        public long getStoryId() {
+            return storyId;
+        }
+
+        public double getSimilarity() {
+            return similarity;
+        }
+    }
+}
@@ -2,41 +2,44 @@ package com.androidnews.service;
 
 import com.androidnews.dto.CategoryDTO;
 import com.androidnews.model.Category;
-import com.androidnews.repository.CategoryRepository;
+import com.androidnews.model.NewsCounter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CategoryService {
 
-    private final CategoryRepository categoryRepository;
+    private final ReferenceDataService referenceDataService;
+    private final NewsCounterService newsCounterService;
 
     @Transactional(readOnly = true)
     public List<CategoryDTO> getAllCategories() {
-        return categoryRepository.findAll().stream()
-                .map(this::convertToDTO)
+        Map<String, Long> counts = newsCounterService.getCounts(NewsCounter.Dimension.CATEGORY);
+        return referenceDataService.getCategories().stream()
+                .map(category -> convertToDTO(category, counts.getOrDefault(category.getSlug(), 0L)))
                 .collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
     public CategoryDTO getCategoryBySlug(String slug) {
-        Category category = categoryRepository.findBySlug(slug)
+        Category category = referenceDataService.findCategory(slug)
                 .orElseThrow(() -> new RuntimeException("Category not found: " + slug));
-        return convertToDTO(category);
+        return convertToDTO(category, newsCounterService.getCount(NewsCounter.Dimension.CATEGORY, slug));
     }
 
-    private CategoryDTO convertToDTO(Category category) {
+    private CategoryDTO convertToDTO(Category category, long newsCount) {
         return new CategoryDTO(
                 category.getId(),
                 category.getName(),
                 category.getSlug(),
                 category.getDescription(),
-                category.getNews().size()
+                (int) newsCount
         );
     }
 }
@@ -0,0 +1,160 @@
+package com.androidnews.service;
+
+import com.androidnews.dto.CrawlLeaseDTO;
+import com.androidnews.model.CrawlLease;
+import com.androidnews.repository.CrawlLeaseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Replicas share the crawl_leases table so each source is crawled by one live node at a time. A node keeps the
+// sources it claimed for as long as its heartbeat extends them; when it stops, the leases expire after the TTL and
+// another node takes them over on its next attempt. Node clocks must agree to well within the TTL
+@Service
+@Slf4j
+public class CrawlLeaseService {
+
+    private final CrawlLeaseRepository crawlLeaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final String nodeId;
+    private final Duration ttl;
+    private final Set<String> held = ConcurrentHashMap.newKeySet();
+    private volatile boolean releasing;
+
+    public CrawlLeaseService(CrawlLeaseRepository crawlLeaseRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${crawler.lease.enabled:true}") boolean enabled,
+                             @Value("${crawler.lease.node-id:}") String nodeId,
+                             @Value("${crawler.lease.ttl-seconds:90}") long ttlSeconds) {
+        this.crawlLeaseRepository = crawlLeaseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.nodeId = nodeId.isEmpty() ? defaultNodeId() : nodeId;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    // Claims a free or expired lease, or extends one this node already holds
+    public boolean tryAcquire(String source) {
+        if (!enabled) {
+            return true;
+        }
+        if (releasing) {
+            return false;
+        }
+        boolean acquired;
+        try {
+            acquired = Boolean.TRUE.equals(transactionTemplate.execute(status -> claim(source)));
+        } catch (DataIntegrityViolationException | OptimisticLockingFailureException e) {
+            // The competing write may have come from this node too (heartbeat and scheduler), so ask the row
+            log.debug("Crawl lease for {} was written concurrently", source);
+            acquired = crawlLeaseRepository.findById(source)
+                    .map(lease -> nodeId.equals(lease.getOwner()) && lease.getExpiresAt().isAfter(LocalDateTime.now()))
+                    .orElse(false);
+        }
+        if (acquired) {
+            held.add(source);
+        } else if (held.remove(source)) {
+            log.warn("Lost the crawl lease for {}", source);
+        }
+        return acquired;
+    }
+
+    // Keeps the leases alive while a long crawl is still running; the fixed delay must stay well under the TTL
+    @Scheduled(fixedDelayString = "${crawler.lease.heartbeat-ms:30000}")
+    public synchronized void heartbeat() {
+        for (String source : new ArrayList<>(held)) {
+            tryAcquire(source);
+        }
+    }
+
+    // Hands the sources back on a clean shutdown so other nodes do not have to wait for the TTL. The heartbeat
+    // keeps running until the scheduler is destroyed, so it is stopped first or it would re-create released rows
+    @PreDestroy
+    public synchronized void releaseAll() {
+        releasing = true;
+        for (String source : new ArrayList<>(held)) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        crawlLeaseRepository.deleteBySourceAndOwner(source, nodeId));
+                held.remove(source);
+            } catch (RuntimeException e) {
+                log.warn("Could not release the crawl lease for {}: {}", source, e.getMessage());
+            }
+        }
+    }
+
+    public List<CrawlLeaseDTO> getLeases() {
+        LocalDateTime now = LocalDateTime.now();
+        List<CrawlLeaseDTO> result = new ArrayList<>();
+        for (CrawlLease lease : crawlLeaseRepository.findAllByOrderBySourceAsc()) {
+            result.add(new CrawlLeaseDTO(
+                    lease.getSource(),
+                    lease.getOwner(),
+                    lease.getAcquiredAt(),
+                    lease.getExpiresAt(),
+                    !lease.getExpiresAt().isAfter(now),
+                    nodeId.equals(lease.getOwner())
+            ));
+        }
+        return result;
+    }
+
+    private Boolean claim(String source) {
+        LocalDateTime now = LocalDateTime.now();
+        CrawlLease lease = crawlLeaseRepository.findById(source).orElse(null);
+        if (lease == null) {
+            crawlLeaseRepository.saveAndFlush(new CrawlLease(source, nodeId, now, now.plus(ttl), null));
+            log.info("Acquired the crawl lease for {}", source);
+            return true;
+        }
+        boolean mine = nodeId.equals(lease.getOwner());
+        if (!mine && lease.getExpiresAt().isAfter(now)) {
+            return false;
+        }
+        if (!mine) {
+            log.info("Took over the expired crawl lease for {} from {}", source, lease.getOwner());
+            lease.setOwner(nodeId);
+            lease.setAcquiredAt(now);
+        }
+        lease.setExpiresAt(now.plus(ttl));
+        crawlLeaseRepository.saveAndFlush(lease);
+        return true;
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -1,15 +1,25 @@
 package com.androidnews.service;
 
+import com.androidnews.crawler.CrawlExecutor;
+import com.androidnews.crawler.CrawlSink;
+import com.androidnews.crawler.FetchResult;
 import com.androidnews.crawler.NewsCrawler;
+import com.androidnews.crawler.PageFetcher;
+import com.androidnews.dto.CrawlReport;
 import com.androidnews.model.News;
-import com.androidnews.repository.NewsRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @Service
 @RequiredArgsConstructor
@@ -17,31 +27,107 @@ import java.util.Optional;
 public class CrawlerService {
 
     private final List<NewsCrawler> crawlers;
-    private final NewsRepository newsRepository;
+    private final IngestQueueService ingestQueueService;
+    private final CrawlExecutor crawlExecutor;
+    private final PageFetcher pageFetcher;
 
-    @Transactional
-    public void crawlAllSources() {
-        log.info("Starting news crawling process");
+    private volatile CrawlReport lastReport;
 
+    public CrawlReport crawlSources(Collection<String> sourceNames) {
+        List<NewsCrawler> selected = new ArrayList<>();
         for (NewsCrawler crawler : crawlers) {
-            try {
-                log.info("Crawling from source: {}", crawler.getSourceName());
-                List<News> newsList = crawler.crawlNews();
-
-                for (News news : newsList) {
-                    Optional<News> existingNews = newsRepository.findBySourceUrl(news.getSourceUrl());
-                    if (existingNews.isEmpty()) {
-                        newsRepository.save(news);
-                        log.info("Saved new article: {}", news.getTitle());
-                    } else {
-                        log.debug("Article already exists: {}", news.getTitle());
+            if (sourceNames.contains(crawler.getSourceName())) {
+                selected.add(crawler);
+            }
+        }
+        return crawl(selected);
+    }
+
+    public List<String> getSourceNames() {
+        List<String> names = new ArrayList<>();
+        for (NewsCrawler crawler : crawlers) {
+            names.add(crawler.getSourceName());
+        }
+        return names;
+    }
+
+    private CrawlReport crawl(List<NewsCrawler> selected) {
+        String mode = crawlExecutor.isParallel() ? "parallel" : "serial";
+        log.info("Starting news crawling process ({} mode)", mode);
+        long started = System.nanoTime();
+
+        CrawlReport report = new CrawlReport();
+        report.setMode(mode);
+        report.setStartedAt(LocalDateTime.now());
+
+        // Crawl threads push articles into the ingest queue as they are parsed; the writer persists them in short
+        // transactions of its own, so this thread holds no connection while the crawl waits on the network
+        IngestQueueService.Run run = ingestQueueService.openRun();
+        Map<String, List<FetchResult>> listings = new ConcurrentHashMap<>();
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (NewsCrawler crawler : selected) {
+            String sourceName = crawler.getSourceName();
+            tasks.add(() -> {
+                log.info("Crawling from source: {}", sourceName);
+                return crawler.crawlNews(new CrawlSink() {
+                    @Override
+                    public void accept(News news) {
+                        ingestQueueService.submit(run, sourceName, news);
                     }
-                }
-            } catch (Exception e) {
-                log.error("Error crawling from {}: {}", crawler.getSourceName(), e.getMessage(), e);
+
+                    @Override
+                    public void listingProcessed(FetchResult listing) {
+                        listings.computeIfAbsent(sourceName, key -> new CopyOnWriteArrayList<>()).add(listing);
+                    }
+                });
+            });
+        }
+        List<Integer> results = crawlExecutor.runSources(tasks);
+        try {
+            if (run.awaitWritten()) {
+                commitListings(listings, run);
+            } else {
+                // Listings keep their old validators, so the next crawl reads them in full again
+                log.warn("Timed out waiting for crawled articles to be written");
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for crawled articles to be written");
         }
 
-        log.info("Completed news crawling process");
+        for (int i = 0; i < selected.size(); i++) {
+            String sourceName = selected.get(i).getSourceName();
+            report.getCrawledBySource().put(sourceName, results.get(i) != null ? results.get(i) : 0);
+            report.getSavedBySource().put(sourceName, run.saved(sourceName));
+        }
+        report.setIngestBatches(run.batches());
+        report.setConnectionHoldMillis(run.transactionMillis());
+        report.setLongestConnectionHoldMillis(run.longestTransactionMillis());
+        report.setBackpressureMillis(run.backpressureMillis());
+
+        report.setElapsedMillis((System.nanoTime() - started) / 1_000_000);
+        lastReport = report;
+        log.info("Completed news crawling process ({} mode) in {} ms, {} ms in ingest transactions",
+                mode, report.getElapsedMillis(), report.getConnectionHoldMillis());
+        return report;
+    }
+
+    // A listing whose articles did not all make it into the database keeps its old validator, so the next crawl
+    // reads it in full instead of getting a 304 and losing those articles for good
+    private void commitListings(Map<String, List<FetchResult>> listings, IngestQueueService.Run run) {
+        listings.forEach((sourceName, fetched) -> {
+            int failed = run.failed(sourceName);
+            if (failed > 0) {
+                log.warn("{} articles from {} failed to save, its listing will be read again next crawl", failed, sourceName);
+                return;
+            }
+            for (FetchResult listing : fetched) {
+                pageFetcher.commit(listing);
+            }
+        });
+    }
+
+    public Optional<CrawlReport> getLastReport() {
+        return Optional.ofNullable(lastReport);
     }
 }
@@ -0,0 +1,180 @@
+package com.androidnews.service;
+
+import com.androidnews.dto.CategoryDTO;
+import com.androidnews.dto.CursorPage;
+import com.androidnews.dto.FeedCacheStatsDTO;
+import com.androidnews.dto.NewsDTO;
+import com.androidnews.dto.TagDTO;
+import com.androidnews.event.NewsDeletedEvent;
+import com.androidnews.event.NewsIngestedEvent;
+import com.androidnews.model.News;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Sits in front of the read services at the controller boundary, so a hit opens no transaction
+@Service
+@Slf4j
+public class FeedCacheService {
+
+    public enum Scope {
+        GLOBAL, CATEGORY, TAG
+    }
+
+    private final boolean enabled;
+    private final long maxWeightBytes;
+    private final Cache<Key, Object> cache;
+    private final LongAdder invalidations = new LongAdder();
+
+    public FeedCacheService(@Value("${feed-cache.enabled:true}") boolean enabled,
+                            @Value("${feed-cache.max-weight-bytes:33554432}") long maxWeightBytes,
+                            @Value("${feed-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.maxWeightBytes = maxWeightBytes;
+        // Caffeine's W-TinyLFU keeps the first pages that everyone polls and lets one-off deep pages go. The
+        // expiry is only a safety net for anything that changes feeds without advancing a shared version
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .weigher((Key key, Object value) -> (int) Math.min(Integer.MAX_VALUE, key.weight() + estimateWeight(value)))
+                .recordStats()
+                .build();
+    }
+
+    // The version is the response's ETag, shared by every node: entries of an older version can never be served,
+    // even when a load that started before a commit finishes after its invalidation or the change was made on
+    // another node
+    @SuppressWarnings("unchecked")
+    public <T> T get(Scope scope, String name, String version, String request, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return (T) cache.get(new Key(scope, name, version, request), key -> loader.get());
+    }
+
+    // Drops exactly the scopes an ingest touched to free the memory early; everything keyed by another category or
+    // tag stays warm
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onNewsIngested(NewsIngestedEvent event) {
+        Set<String> slugs = new HashSet<>();
+        Set<String> tags = new HashSet<>();
+        for (News news : event.getNews()) {
+            slugs.add(news.getCategory().getSlug());
+            tags.addAll(news.getTags());
+        }
+        evict(slugs, tags);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onNewsDeleted(NewsDeletedEvent event) {
+        evict(Set.of(event.getCategorySlug()), event.getTags());
+    }
+
+    // For changes made without an ingest or delete event, such as articles joining a story
+    public void evictAfterCommit(Set<String> slugs, Set<String> tags) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(slugs, tags);
+            }
+        });
+    }
+
+    public FeedCacheStatsDTO getStats() {
+        CacheStats stats = cache.stats();
+        long weight = cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+        return new FeedCacheStatsDTO(enabled, cache.estimatedSize(), weight, maxWeightBytes, stats.hitCount(),
+                stats.missCount(), stats.hitRate(), stats.evictionCount(), invalidations.sum());
+    }
+
+    private void evict(Set<String> slugs, Set<String> tags) {
+        cache.asMap().keySet().removeIf(key -> {
+            boolean stale = key.getScope() == Scope.GLOBAL
+                    || key.getScope() == Scope.CATEGORY && slugs.contains(key.getName())
+                    || key.getScope() == Scope.TAG && tags.contains(key.getName());
+            if (stale) {
+                invalidations.increment();
+            }
+            return stale;
+        });
+    }
+
+    // Rough retained size: object headers plus two bytes per string character
+    private static long estimateWeight(Object value) {
+        if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        }
+        if (value instanceof Page) {
+            return 128 + estimateWeight(((Page<?>) value).getContent());
+        }
+        if (value instanceof CursorPage) {
+            CursorPage<?> page = (CursorPage<?>) value;
+            return 64 + estimateWeight(page.getItems()) + length(page.getNextCursor());
+        }
+        if (value instanceof Collection) {
+            long weight = 32;
+            for (Object item : (Collection<?>) value) {
+                weight += 8 + estimateWeight(item);
+            }
+            return weight;
+        }
+        if (value instanceof NewsDTO) {
+            NewsDTO dto = (NewsDTO) value;
+            long weight = 160 + length(dto.getTitle()) + length(dto.getContent()) + length(dto.getSummary())
+                    + length(dto.getImageUrl()) + length(dto.getImageCredit()) + length(dto.getSourceUrl())
+                    + length(dto.getSource()) + length(dto.getSourceLogoUrl()) + length(dto.getCategory())
+                    + length(dto.getCategorySlug()) + length(dto.getAuthor()) + length(dto.getAuthorBio())
+                    + length(dto.getAuthorAvatar());
+            if (dto.getTags() != null) {
+                weight += estimateWeight(dto.getTags());
+            }
+            if (dto.getRelatedNews() != null) {
+                weight += estimateWeight(dto.getRelatedNews());
+            }
+            return weight;
+        }
+        if (value instanceof CategoryDTO) {
+            CategoryDTO dto = (CategoryDTO) value;
+            return 64 + length(dto.getName()) + length(dto.getSlug()) + length(dto.getDescription());
+        }
+        if (value instanceof TagDTO) {
+            return 48 + length(((TagDTO) value).getName());
+        }
+        if (value instanceof String) {
+            return length((String) value);
+        }
+        return 64;
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+
+    @Data
+    private static class Key {
+        private final Scope scope;
+        private final String name;
+        private final String version;
+        private final String request;
+
+        long weight() {
+            return 96 + length(name) + length(version) + length(request);
+        }
+    }
+}
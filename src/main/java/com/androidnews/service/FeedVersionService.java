@@ -0,0 +1,164 @@
+package com.androidnews.service;
+
+import com.androidnews.dto.FeedVersionStatsDTO;
+import com.androidnews.event.NewsDeletedEvent;
+import com.androidnews.event.NewsIngestedEvent;
+import com.androidnews.model.FeedVersion;
+import com.androidnews.model.News;
+import com.androidnews.repository.FeedVersionRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Versions live in the database and move in the same transaction as the rows they describe, so every node hands
+// out the same ETag for the same data. Reads are cached for a moment; the node that made a change drops its own
+// cached versions on commit, the others pick the change up when their entry expires
+@Service
+@Slf4j
+public class FeedVersionService {
+
+    private static final String GLOBAL = "global";
+    private static final String CATEGORY = "category:";
+    private static final String TAG = "tag:";
+
+    private final FeedVersionRepository feedVersionRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final LoadingCache<String, Long> versions;
+
+    private final LongAdder conditionalRequests = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder fullResponses = new LongAdder();
+
+    public FeedVersionService(FeedVersionRepository feedVersionRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${feed-version.cache-ms:1000}") long cacheMillis) {
+        this.feedVersionRepository = feedVersionRepository;
+        this.transactionManager = transactionManager;
+        this.versions = Caffeine.newBuilder()
+                .expireAfterWrite(cacheMillis, TimeUnit.MILLISECONDS)
+                .maximumSize(10_000)
+                .build(key -> feedVersionRepository.findById(key).map(FeedVersion::getVersion).orElse(0L));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onNewsIngested(NewsIngestedEvent event) {
+        Set<String> slugs = new HashSet<>();
+        Set<String> tags = new HashSet<>();
+        for (News news : event.getNews()) {
+            slugs.add(news.getCategory().getSlug());
+            tags.addAll(news.getTags());
+        }
+        advance(slugs, tags);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onNewsDeleted(NewsDeletedEvent event) {
+        advance(Set.of(event.getCategorySlug()), event.getTags());
+    }
+
+    @Transactional
+    public void advanceGlobal() {
+        advance(Set.of(), Set.of());
+    }
+
+    // Moves the global scope and the given categories and tags inside the caller's transaction
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void advance(Collection<String> slugs, Collection<String> tags) {
+        Set<String> keys = new TreeSet<>();
+        keys.add(GLOBAL);
+        for (String slug : slugs) {
+            keys.add(CATEGORY + slug);
+        }
+        for (String tag : tags) {
+            keys.add(TAG + tag);
+        }
+        Set<String> missing = new TreeSet<>(keys);
+        for (FeedVersion existing : feedVersionRepository.findAllById(keys)) {
+            missing.remove(existing.getScopeKey());
+        }
+        for (String key : missing) {
+            create(key);
+        }
+        feedVersionRepository.advance(keys);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                versions.invalidateAll(keys);
+            }
+        });
+    }
+
+    // Covers every response that may change with any ingest: /news, details and category and tag counts
+    public String globalETag() {
+        return "\"" + versions.get(GLOBAL) + "\"";
+    }
+
+    public String categoryETag(String slug) {
+        return "\"c" + versions.get(CATEGORY + slug) + "\"";
+    }
+
+    public String tagETag(String tag) {
+        return "\"t" + versions.get(TAG + tag) + "\"";
+    }
+
+    // Sets 304 on the response when the client's If-None-Match still matches
+    public boolean checkNotModified(WebRequest request, String etag) {
+        if (request.getHeader("If-None-Match") != null) {
+            conditionalRequests.increment();
+        }
+        if (request.checkNotModified(etag)) {
+            notModified.increment();
+            return true;
+        }
+        fullResponses.increment();
+        return false;
+    }
+
+    public FeedVersionStatsDTO getStats() {
+        Map<String, Long> categories = new TreeMap<>();
+        for (FeedVersion version : feedVersionRepository.findByPrefix(CATEGORY)) {
+            categories.put(version.getScopeKey().substring(CATEGORY.length()), version.getVersion());
+        }
+        return new FeedVersionStatsDTO(versions.get(GLOBAL), categories, conditionalRequests.sum(),
+                notModified.sum(), fullResponses.sum());
+    }
+
+    // Rows start from the clock rather than zero, so a database that is recreated never hands out a version a
+    // client still holds. Created in a transaction of its own so the insert race between nodes cannot roll back
+    // the caller
+    private void create(String key) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            template.executeWithoutResult(status -> {
+                if (!feedVersionRepository.existsById(key)) {
+                    feedVersionRepository.saveAndFlush(new FeedVersion(key, System.currentTimeMillis()));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Feed version {} was created concurrently", key);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.androidnews.service;
+
+import com.androidnews.dto.IngestQueueStatsDTO;
+import com.androidnews.model.News;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Crawl threads hand parsed articles to a bounded queue and a single writer persists them in short batch
+// transactions, so no connection is held while a crawl waits on the network. When the queue is full, submit
+// blocks the crawl thread until the writer catches up. Once the writer stops, for whatever reason, nothing more is
+// accepted and every article it did not write is counted as failed, so no crawl waits on it forever
+@Service
+@Slf4j
+public class IngestQueueService {
+
+    private static final long SHUTDOWN_WAIT_MILLIS = 30_000;
+
+    private final NewsIngestService newsIngestService;
+    private final BlockingQueue<Pending> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final long awaitTimeoutMillis;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile boolean stopped;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder transactionNanos = new LongAdder();
+    private final AtomicLong maxTransactionNanos = new AtomicLong();
+    private final LongAdder backpressureWaits = new LongAdder();
+    private final LongAdder backpressureNanos = new LongAdder();
+
+    public IngestQueueService(NewsIngestService newsIngestService,
+                              @Value("${ingest-queue.capacity:200}") int capacity,
+                              @Value("${ingest-queue.batch-size:50}") int batchSize,
+                              @Value("${ingest-queue.await-timeout-seconds:600}") long awaitTimeoutSeconds) {
+        this.newsIngestService = newsIngestService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.awaitTimeoutMillis = TimeUnit.SECONDS.toMillis(awaitTimeoutSeconds);
+        this.writer = new Thread(this::drain, "ingest-writer");
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.start();
+    }
+
+    // Lets the writer finish what is already queued before the context closes
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(SHUTDOWN_WAIT_MILLIS);
+    }
+
+    public Run openRun() {
+        return new Run(awaitTimeoutMillis);
+    }
+
+    public void submit(Run run, String source, News news) {
+        if (!running || stopped) {
+            throw new IllegalStateException("Ingest queue is shut down");
+        }
+        Pending pending = new Pending(run, source, news);
+        run.submitted();
+        if (!queue.offer(pending)) {
+            long started = System.nanoTime();
+            try {
+                // Wakes up now and then so a writer that died never leaves the crawl thread parked on a full queue
+                while (!queue.offer(pending, 1, TimeUnit.SECONDS)) {
+                    if (stopped) {
+                        pending.complete(false, true);
+                        throw new IllegalStateException("Ingest writer has stopped");
+                    }
+                }
+            } catch (InterruptedException e) {
+                pending.complete(false, true);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while queueing article for ingest", e);
+            }
+            long waited = System.nanoTime() - started;
+            backpressureWaits.increment();
+            backpressureNanos.add(waited);
+            run.backpressureNanos.add(waited);
+        }
+        // The writer may have stopped and swept the queue just before this article went in
+        if (stopped && queue.remove(pending)) {
+            pending.complete(false, true);
+            throw new IllegalStateException("Ingest writer has stopped");
+        }
+    }
+
+    public IngestQueueStatsDTO getStats() {
+        return new IngestQueueStatsDTO(
+                queue.size(),
+                capacity,
+                batches.sum(),
+                written.sum(),
+                failed.sum(),
+                TimeUnit.NANOSECONDS.toMillis(transactionNanos.sum()),
+                TimeUnit.NANOSECONDS.toMillis(maxTransactionNanos.get()),
+                backpressureWaits.sum(),
+                TimeUnit.NANOSECONDS.toMillis(backpressureNanos.sum())
+        );
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                try {
+                    Pending first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    write(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (RuntimeException e) {
+                    log.error("Ingest writer failed: {}", e.getMessage(), e);
+                    failAll(batch);
+                }
+                batch.clear();
+            }
+        } finally {
+            stopped = true;
+            // Covers a batch cut short by an Error as well as whatever was still queued
+            queue.drainTo(batch);
+            if (!batch.isEmpty()) {
+                log.error("Ingest writer stopped with {} articles unwritten", batch.size());
+                failAll(batch);
+            }
+        }
+    }
+
+    private void failAll(List<Pending> batch) {
+        for (Pending pending : batch) {
+            if (pending.complete(false, true)) {
+                failed.increment();
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        List<News> articles = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            articles.add(pending.news);
+        }
+
+        Set<News> saved = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<News> failedArticles = Collections.newSetFromMap(new IdentityHashMap<>());
+        long[] timing = new long[2];
+        try {
+            saved.addAll(ingestTimed(articles, timing));
+        } catch (RuntimeException e) {
+            // One bad article should not cost the rest of the batch
+            log.warn("Ingest batch of {} failed, retrying articles one by one: {}", articles.size(), e.getMessage());
+            for (News news : articles) {
+                resetGeneratedIds(news);
+                try {
+                    saved.addAll(ingestTimed(Collections.singletonList(news), timing));
+                } catch (RuntimeException articleError) {
+                    failed.increment();
+                    failedArticles.add(news);
+                    log.error("Error saving article {}: {}", news.getSourceUrl(), articleError.getMessage(), articleError);
+                }
+            }
+        }
+        long elapsed = timing[0];
+        long longest = timing[1];
+
+        batches.increment();
+        written.add(saved.size());
+        transactionNanos.add(elapsed);
+        maxTransactionNanos.accumulateAndGet(longest, Math::max);
+        Set<Run> runs = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Pending pending : batch) {
+            if (runs.add(pending.run)) {
+                pending.run.batches.increment();
+                pending.run.transactionNanos.add(elapsed);
+                pending.run.longestTransactionNanos.accumulateAndGet(longest, Math::max);
+            }
+        }
+        for (Pending pending : batch) {
+            boolean isSaved = saved.contains(pending.news);
+            if (isSaved) {
+                log.info("Saved new article: {}", pending.news.getTitle());
+            }
+            pending.complete(isSaved, failedArticles.contains(pending.news));
+        }
+    }
+
+    // Each ingest call is one transaction, so its duration is how long it held a connection; timing holds the
+    // total and the longest
+    private List<News> ingestTimed(List<News> articles, long[] timing) {
+        long started = System.nanoTime();
+        try {
+            return newsIngestService.ingest(articles);
+        } finally {
+            long elapsed = System.nanoTime() - started;
+            timing[0] += elapsed;
+            timing[1] = Math.max(timing[1], elapsed);
+        }
+    }
+
+    // A rolled-back persist leaves the sequence ids on the entities, which would make a retry look detached
+    private static void resetGeneratedIds(News news) {
+        news.setId(null);
+        if (news.getBody() != null) {
+            news.getBody().setId(null);
+        }
+    }
+
+    private static class Pending {
+        private final Run run;
+        private final String source;
+        private final News news;
+        private boolean done;
+
+        Pending(Run run, String source, News news) {
+            this.run = run;
+            this.source = source;
+            this.news = news;
+        }
+
+        // Counts the article against its run exactly once, whichever path gets to it first
+        synchronized boolean complete(boolean saved, boolean failed) {
+            if (done) {
+                return false;
+            }
+            done = true;
+            run.completed(source, saved, failed);
+            return true;
+        }
+    }
+
+    // Tracks one crawl's articles through the queue; transaction time is counted once per batch the run took part in
+    public static class Run {
+        private final Map<String, AtomicInteger> savedBySource = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> failedBySource = new ConcurrentHashMap<>();
+        private final LongAdder batches = new LongAdder();
+        private final LongAdder transactionNanos = new LongAdder();
+        private final AtomicLong longestTransactionNanos = new AtomicLong();
+        private final LongAdder backpressureNanos = new LongAdder();
+        private final long awaitTimeoutMillis;
+        private int pending;
+
+        private Run(long awaitTimeoutMillis) {
+            this.awaitTimeoutMillis = awaitTimeoutMillis;
+        }
+
+        private synchronized void submitted() {
+            pending++;
+        }
+
+        private synchronized void completed(String source, boolean saved, boolean failed) {
+            if (saved) {
+                savedBySource.computeIfAbsent(source, key -> new AtomicInteger()).incrementAndGet();
+            }
+            if (failed) {
+                failedBySource.computeIfAbsent(source, key -> new AtomicInteger()).incrementAndGet();
+            }
+            if (--pending == 0) {
+                notifyAll();
+            }
+        }
+
+        // False when articles are still outstanding after the timeout
+        public synchronized boolean awaitWritten() throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(awaitTimeoutMillis);
+            while (pending > 0) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                wait(remaining);
+            }
+            return true;
+        }
+
+        public int saved(String source) {
+            AtomicInteger count = savedBySource.get(source);
+            return count == null ? 0 : count.get();
+        }
+
+        public int failed(String source) {
+            AtomicInteger count = failedBySource.get(source);
+            return count == null ? 0 : count.get();
+        }
+
+        public long batches() {
+            return batches.sum();
+        }
+
+        public long transactionMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(transactionNanos.sum());
+        }
+
+        public long longestTransactionMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(longestTransactionNanos.get());
+        }
+
+        public long backpressureMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(backpressureNanos.sum());
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.androidnews.service;
+
+import com.androidnews.model.NewsBody;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Moves bodies from the legacy news.content column into compressed news_bodies rows. The column is no longer
+// mapped, so it is read with plain JDBC. Run once from a single node through NewsBodyMigrationRunner:
+// copy (resumable, one short transaction per chunk), verify, and only then drop the column
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NewsBodyMigrationService {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+
+    // Startup only reports what is left; the copy itself is a one-off step
+    public void warnIfPending() {
+        if (legacyContentColumn() == null) {
+            return;
+        }
+        long pending = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM news WHERE body_id IS NULL", Long.class);
+        log.warn("Legacy column news.content still exists with {} articles not yet copied to news_bodies; "
+                + "run the migration with --migrate.news-bodies=copy, then verify and drop", pending);
+    }
+
+    // Rows written by nodes that still map the column are picked up by running the copy again
+    public int copyLegacyContent() {
+        Boolean nullable = legacyContentColumn();
+        if (nullable == null) {
+            return 0;
+        }
+        if (!nullable) {
+            // New articles no longer write the column, so it must accept NULL while it is kept around
+            jdbcTemplate.execute(isMySql()
+                    ? "ALTER TABLE news MODIFY content TEXT NULL"
+                    : "ALTER TABLE news ALTER COLUMN content SET NULL");
+        }
+
+        long started = System.nanoTime();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int migrated = 0;
+        long[] lastId = {0};
+        Integer copied;
+        while ((copied = transaction.execute(status -> copyChunk(lastId))) > 0) {
+            migrated += copied;
+        }
+        log.info("Copied {} article bodies to news_bodies in {} ms", migrated, (System.nanoTime() - started) / 1_000_000);
+        return migrated;
+    }
+
+    private int copyChunk(long[] lastId) {
+        List<Object[]> chunk = jdbcTemplate.query(
+                "SELECT id, content FROM news WHERE body_id IS NULL AND id > ? ORDER BY id LIMIT " + CHUNK_SIZE,
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2)}, lastId[0]);
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        List<NewsBody> bodies = new ArrayList<>(chunk.size());
+        for (Object[] row : chunk) {
+            NewsBody body = new NewsBody(null, row[1] == null ? "" : (String) row[1]);
+            entityManager.persist(body);
+            bodies.add(body);
+        }
+        entityManager.flush();
+
+        List<Object[]> links = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            links.add(new Object[]{bodies.get(i).getId(), chunk.get(i)[0]});
+        }
+        // A row linked meanwhile by another run keeps its body; the copy made here is discarded
+        int[] updated = jdbcTemplate.batchUpdate("UPDATE news SET body_id = ? WHERE id = ? AND body_id IS NULL", links);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                entityManager.remove(bodies.get(i));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        lastId[0] = (Long) chunk.get(chunk.size() - 1)[0];
+        return chunk.size();
+    }
+
+    // Counts rows whose body is missing or differs from the legacy column; articles written after the copy
+    // started have no legacy content and are not compared
+    public long verifyLegacyContent() {
+        if (legacyContentColumn() == null) {
+            return 0;
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return Objects.requireNonNull(transaction.execute(status -> {
+            long problems = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM news WHERE body_id IS NULL", Long.class);
+            long lastId = 0;
+            List<Object[]> chunk;
+            while (!(chunk = jdbcTemplate.query(
+                    "SELECT id, content, body_id FROM news WHERE content IS NOT NULL AND body_id IS NOT NULL AND id > ? "
+                            + "ORDER BY id LIMIT " + CHUNK_SIZE,
+                    (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2), rs.getLong(3)}, lastId)).isEmpty()) {
+                List<Long> bodyIds = new ArrayList<>(chunk.size());
+                for (Object[] row : chunk) {
+                    bodyIds.add((Long) row[2]);
+                }
+                Map<Long, String> contentByBodyId = new HashMap<>();
+                for (NewsBody body : entityManager.createQuery("SELECT b FROM NewsBody b WHERE b.id IN :ids", NewsBody.class)
+                        .setParameter("ids", bodyIds)
+                        .getResultList()) {
+                    contentByBodyId.put(body.getId(), body.getContent());
+                }
+                for (Object[] row : chunk) {
+                    if (!row[1].equals(contentByBodyId.get((Long) row[2]))) {
+                        problems++;
+                        log.warn("Body of article {} does not match its legacy content", row[0]);
+                    }
+                }
+                entityManager.clear();
+                lastId = (Long) chunk.get(chunk.size() - 1)[0];
+            }
+            log.info("Verified legacy article bodies: {} missing or different", problems);
+            return problems;
+        }));
+    }
+
+    // Irreversible, and on MySQL the DDL commits on its own, so it only runs once every body checks out
+    public void dropLegacyContent() {
+        if (legacyContentColumn() == null) {
+            return;
+        }
+        long problems = verifyLegacyContent();
+        if (problems > 0) {
+            throw new IllegalStateException(problems + " articles are missing or differ in news_bodies; "
+                    + "run the copy again before dropping news.content");
+        }
+        jdbcTemplate.execute("ALTER TABLE news DROP COLUMN content");
+        log.info("Dropped legacy column news.content");
+    }
+
+    // Null when the column is gone, otherwise whether it accepts NULL
+    private Boolean legacyContentColumn() {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // Identifier case differs between databases (H2 upper-cases, MySQL keeps it as created)
+            for (String table : new String[]{"news", "NEWS"}) {
+                try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, table, null)) {
+                    while (columns.next()) {
+                        if ("content".equalsIgnoreCase(columns.getString("COLUMN_NAME"))) {
+                            return columns.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls;
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private boolean isMySql() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql")));
+    }
+}
@@ -0,0 +1,143 @@
+package com.androidnews.service;
+
+import com.androidnews.event.NewsDeletedEvent;
+import com.androidnews.event.NewsIngestedEvent;
+import com.androidnews.model.News;
+import com.androidnews.model.NewsCounter;
+import com.androidnews.repository.NewsCounterRepository;
+import com.androidnews.repository.NewsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NewsCounterService {
+
+    // Fixed update order keeps concurrent ingests from deadlocking on each other's counter rows
+    private static final Comparator<NewsCounter.Key> KEY_ORDER = Comparator
+            .comparing(NewsCounter.Key::getDimension)
+            .thenComparing(NewsCounter.Key::getCounterKey);
+
+    private final NewsCounterRepository counterRepository;
+    private final NewsRepository newsRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    // Runs inside the ingest transaction, so counters commit or roll back together with the articles
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onNewsIngested(NewsIngestedEvent event) {
+        Map<NewsCounter.Key, Long> deltas = new TreeMap<>(KEY_ORDER);
+        for (News news : event.getNews()) {
+            addDelta(deltas, NewsCounter.Dimension.CATEGORY, news.getCategory().getSlug());
+            addDelta(deltas, NewsCounter.Dimension.SOURCE, news.getSource().getName());
+            for (String tag : news.getTags()) {
+                addDelta(deltas, NewsCounter.Dimension.TAG, tag);
+            }
+        }
+
+        for (Map.Entry<NewsCounter.Key, Long> delta : deltas.entrySet()) {
+            NewsCounter.Key key = delta.getKey();
+            if (counterRepository.increment(key.getDimension(), key.getCounterKey(), delta.getValue()) == 0) {
+                createCounter(key);
+                counterRepository.increment(key.getDimension(), key.getCounterKey(), delta.getValue());
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onNewsDeleted(NewsDeletedEvent event) {
+        Map<NewsCounter.Key, Long> deltas = new TreeMap<>(KEY_ORDER);
+        addDelta(deltas, NewsCounter.Dimension.CATEGORY, event.getCategorySlug());
+        addDelta(deltas, NewsCounter.Dimension.SOURCE, event.getSourceName());
+        for (String tag : event.getTags()) {
+            addDelta(deltas, NewsCounter.Dimension.TAG, tag);
+        }
+        for (NewsCounter.Key key : deltas.keySet()) {
+            counterRepository.increment(key.getDimension(), key.getCounterKey(), -1);
+        }
+    }
+
+    @Transactional
+    public int rebuildIfEmpty() {
+        if (counterRepository.count() > 0) {
+            return 0;
+        }
+        return rebuild();
+    }
+
+    @Transactional
+    public int rebuild() {
+        long started = System.nanoTime();
+        counterRepository.deleteAllCounters();
+
+        List<NewsCounter> counters = new ArrayList<>();
+        addCounters(counters, NewsCounter.Dimension.CATEGORY, newsRepository.countByCategorySlug());
+        addCounters(counters, NewsCounter.Dimension.SOURCE, newsRepository.countBySourceName());
+        addCounters(counters, NewsCounter.Dimension.TAG, newsRepository.countByTag());
+        counterRepository.saveAll(counters);
+
+        log.info("Rebuilt {} news counters in {} ms", counters.size(), (System.nanoTime() - started) / 1_000_000);
+        return counters.size();
+    }
+
+    public Map<String, Long> getCounts(NewsCounter.Dimension dimension) {
+        Map<String, Long> counts = new HashMap<>();
+        for (NewsCounter counter : counterRepository.findByDimension(dimension)) {
+            counts.put(counter.getCounterKey(), counter.getNewsCount());
+        }
+        return counts;
+    }
+
+    public long getCount(NewsCounter.Dimension dimension, String key) {
+        return counterRepository.findById(new NewsCounter.Key(dimension, key))
+                .map(NewsCounter::getNewsCount)
+                .orElse(0L);
+    }
+
+    public List<NewsCounter> getTop(NewsCounter.Dimension dimension, int limit) {
+        return counterRepository.findByDimensionOrderByNewsCountDesc(dimension, PageRequest.of(0, limit));
+    }
+
+    // The row is inserted in its own transaction so a concurrent insert of the same key cannot fail the ingest
+    private void createCounter(NewsCounter.Key key) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            template.executeWithoutResult(status -> {
+                if (!counterRepository.existsById(key)) {
+                    counterRepository.saveAndFlush(new NewsCounter(key.getDimension(), key.getCounterKey(), 0));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Counter {} was created concurrently", key);
+        }
+    }
+
+    private static void addDelta(Map<NewsCounter.Key, Long> deltas, NewsCounter.Dimension dimension, String key) {
+        if (key != null) {
+            deltas.merge(new NewsCounter.Key(dimension, key), 1L, Long::sum);
+        }
+    }
+
+    private static void addCounters(List<NewsCounter> counters, NewsCounter.Dimension dimension, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            counters.add(new NewsCounter(dimension, (String) row[0], ((Number) row[1]).longValue()));
+        }
+    }
+}
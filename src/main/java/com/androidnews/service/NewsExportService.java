@@ -0,0 +1,128 @@
+package com.androidnews.service;
+
+import com.androidnews.model.News;
+import com.androidnews.repository.NewsRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NewsExportService {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final NewsRepository newsRepository;
+    private final NewsService newsService;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${export.max-concurrent:1}")
+    private int maxConcurrent;
+
+    private Semaphore permits;
+    private TransactionTemplate readOnly;
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(maxConcurrent);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    // Writes every article as one JSON line of gzipped NDJSON. Rows come from a single forward-only cursor and
+    // are detached chunk by chunk, so heap use is bounded by CHUNK_SIZE rather than by the corpus size.
+    // An export holds a transaction, a connection and the cursor for as long as the client takes to download,
+    // so only export.max-concurrent run at once; the permit is taken before the connection.
+    // The caller owns the stream and closes it
+    public long export(OutputStream out) throws IOException {
+        if (!permits.tryAcquire()) {
+            throw new TooManyExportsException();
+        }
+        try {
+            return readOnly.execute(status -> {
+                try {
+                    return exportRows(out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private long exportRows(OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        long exported = 0;
+        GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE);
+        BufferedOutputStream buffered = new BufferedOutputStream(gzip, BUFFER_SIZE);
+        List<News> chunk = new ArrayList<>(CHUNK_SIZE);
+        try (Stream<News> rows = newsRepository.streamAllForExport()) {
+            Iterator<News> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CHUNK_SIZE) {
+                    exported += writeChunk(chunk, buffered);
+                }
+            }
+            exported += writeChunk(chunk, buffered);
+        }
+        buffered.flush();
+        gzip.finish();
+        out.flush();
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        log.info("Exported {} articles in {} ms ({} rows/s)", exported, elapsedMillis, exported * 1_000 / elapsedMillis);
+        return exported;
+    }
+
+    // Tags for the whole chunk come from one query; the cursor stays open across it and across the clear
+    private int writeChunk(List<News> chunk, OutputStream out) throws IOException {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = chunk.stream().map(News::getId).collect(Collectors.toList());
+        Map<Long, Set<String>> tagsById = newsService.loadTags(ids);
+        for (News news : chunk) {
+            out.write(objectMapper.writeValueAsBytes(
+                    newsService.convertToDTO(news, tagsById.getOrDefault(news.getId(), Set.of()))));
+            out.write('\n');
+        }
+        int written = chunk.size();
+        chunk.clear();
+        entityManager.clear();
+        return written;
+    }
+
+    public static class TooManyExportsException extends IllegalStateException {
+        TooManyExportsException() {
+            super("Too many exports running");
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.androidnews.service;
+
+import com.androidnews.event.NewsDeletedEvent;
+import com.androidnews.event.NewsIngestedEvent;
+import com.androidnews.model.News;
+import com.androidnews.model.NewsTombstone;
+import com.androidnews.repository.NewsRepository;
+import com.androidnews.util.UrlCanonicalizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NewsIngestService {
+
+    private static final int LOOKUP_CHUNK_SIZE = 500;
+
+    private final NewsRepository newsRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SyncSequenceService syncSequenceService;
+    private final StoryService storyService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Transactional
+    public List<News> ingest(List<News> candidates) {
+        long started = System.nanoTime();
+
+        // Collapse duplicates inside the batch before asking the database about the rest
+        Map<String, News> byUrlHash = new LinkedHashMap<>();
+        List<News> fresh = new ArrayList<>();
+        for (News news : candidates) {
+            if (news.getSourceUrl() == null) {
+                fresh.add(news);
+            } else {
+                // Clients open the URL as crawled; only the dedup hash uses the canonical form
+                news.setSourceUrlHash(UrlCanonicalizer.hash(news.getSourceUrl()));
+                byUrlHash.putIfAbsent(news.getSourceUrlHash(), news);
+            }
+        }
+
+        Set<String> existing = findExistingSourceUrlHashes(byUrlHash.keySet());
+        for (News news : byUrlHash.values()) {
+            if (existing.contains(news.getSourceUrlHash())) {
+                log.debug("Article already exists: {}", news.getTitle());
+            } else {
+                fresh.add(news);
+            }
+        }
+
+        long seq = fresh.isEmpty() ? 0 : syncSequenceService.allocate(SyncSequenceService.NEWS, fresh.size());
+        StoryService.Batch stories = storyService.startBatch();
+        for (int i = 0; i < fresh.size(); i++) {
+            News news = fresh.get(i);
+            news.setIngestSeq(seq + i);
+            news.setInsertSeq(seq + i);
+            storyService.assign(stories, news);
+            entityManager.persist(news);
+            storyService.record(stories, news);
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        // Duplicates were fetched and parsed just the same, so their pages need not be fetched again either
+        for (News news : candidates) {
+            if (news.getFetchValidator() != null) {
+                entityManager.merge(news.getFetchValidator());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        storyService.finish(stories, fresh);
+
+        if (!fresh.isEmpty()) {
+            eventPublisher.publishEvent(new NewsIngestedEvent(fresh));
+        }
+
+        long elapsedMicros = Math.max(1, (System.nanoTime() - started) / 1_000);
+        log.info("Ingested {} new of {} crawled articles in {} ms ({} rows/s)",
+                fresh.size(), candidates.size(), elapsedMicros / 1_000, fresh.size() * 1_000_000L / elapsedMicros);
+        return fresh;
+    }
+
+    // Single unique-index probe, used by crawlers to stop reading a feed once they reach stored articles
+    @Transactional(readOnly = true)
+    public boolean isKnown(String sourceUrl) {
+        String hash = UrlCanonicalizer.hash(sourceUrl);
+        return hash != null && newsRepository.existsBySourceUrlHash(hash);
+    }
+
+    // Tombstones share the ingest sequence, so /news/changes sees inserts and deletions in one order
+    @Transactional
+    public void delete(Long id) {
+        News news = newsRepository.findWithReferencesById(id)
+                .orElseThrow(() -> new RuntimeException("News not found with id: " + id));
+        NewsDeletedEvent event = new NewsDeletedEvent(news.getId(), news.getStoryId(), news.getCategory().getSlug(),
+                news.getSource().getName(), new HashSet<>(news.getTags()));
+
+        long seq = syncSequenceService.allocate(SyncSequenceService.NEWS, 1);
+        entityManager.remove(news);
+        entityManager.persist(new NewsTombstone(id, seq, LocalDateTime.now()));
+        eventPublisher.publishEvent(event);
+        log.info("Deleted article {} at sequence {}", id, seq);
+    }
+
+    // Databases created while ids were IDENTITY have no news_seq, or one that starts at 1; restart it past MAX(id)
+    // before the first ingest. MySQL has no sequences, so Hibernate keeps news_seq as a one-row table there and
+    // updates it in its own transaction; each step therefore commits before the next draws an id
+    public boolean alignIdSequence() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        Long maxId = newsRepository.findMaxId();
+        if (maxId == null || template.execute(status -> nextId()) > maxId) {
+            return false;
+        }
+
+        DatabaseStructure structure = idGenerator().getDatabaseStructure();
+        // One full allocation block of headroom, whichever end of the block the optimizer hands out first
+        long restartAt = maxId + 1 + structure.getIncrementSize();
+        String sql = structure instanceof SequenceStructure
+                ? "ALTER SEQUENCE " + structure.getName() + " RESTART WITH " + restartAt
+                : "UPDATE " + structure.getName() + " SET next_val = " + restartAt;
+        template.executeWithoutResult(status -> entityManager.createNativeQuery(sql).executeUpdate());
+
+        // Drain the block the check pulled into the optimizer so the next id comes from the restarted value
+        long next = template.execute(status -> {
+            long id;
+            do {
+                id = nextId();
+            } while (id <= maxId);
+            return id;
+        });
+        log.info("Restarted news id sequence above existing max id {}; next id {}", maxId, next);
+        return true;
+    }
+
+    private long nextId() {
+        return ((Number) idGenerator().generate(entityManager.unwrap(SessionImplementor.class), null)).longValue();
+    }
+
+    private SequenceStyleGenerator idGenerator() {
+        return (SequenceStyleGenerator) entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getMetamodel().entityPersister(News.class).getIdentifierGenerator();
+    }
+
+    @Transactional
+    public int backfillIngestSequence() {
+        int updated = 0;
+        long lastId = 0;
+        List<News> chunk;
+        while (!(chunk = newsRepository.findTop500ByIngestSeqIsNullAndIdGreaterThanOrderByIdAsc(lastId)).isEmpty()) {
+            long seq = syncSequenceService.allocate(SyncSequenceService.NEWS, chunk.size());
+            for (News news : chunk) {
+                news.setIngestSeq(seq++);
+                lastId = news.getId();
+                updated++;
+            }
+            entityManager.flush();
+            entityManager.clear();
+        }
+        if (updated > 0) {
+            log.info("Backfilled ingest sequence for {} articles", updated);
+        }
+        return updated;
+    }
+
+    @Transactional
+    public int backfillSourceUrlHashes() {
+        int updated = 0;
+        Set<String> seen = new HashSet<>();
+        long lastId = 0;
+        List<News> chunk;
+        while (!(chunk = newsRepository.findTop500BySourceUrlHashIsNullAndIdGreaterThanOrderByIdAsc(lastId)).isEmpty()) {
+            Map<String, News> byHash = new LinkedHashMap<>();
+            for (News news : chunk) {
+                lastId = news.getId();
+                String hash = UrlCanonicalizer.hash(news.getSourceUrl());
+                if (hash == null) {
+                    continue;
+                }
+                if (seen.add(hash)) {
+                    byHash.put(hash, news);
+                } else {
+                    log.warn("Leaving duplicate article {} without a source URL hash", news.getId());
+                }
+            }
+            Set<String> existing = findExistingSourceUrlHashes(byHash.keySet());
+            for (Map.Entry<String, News> entry : byHash.entrySet()) {
+                if (existing.contains(entry.getKey())) {
+                    log.warn("Leaving duplicate article {} without a source URL hash", entry.getValue().getId());
+                } else {
+                    entry.getValue().setSourceUrlHash(entry.getKey());
+                    updated++;
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        }
+        if (updated > 0) {
+            log.info("Backfilled source URL hashes for {} articles", updated);
+        }
+        return updated;
+    }
+
+    private Set<String> findExistingSourceUrlHashes(Collection<String> hashes) {
+        Set<String> existing = new HashSet<>();
+        List<String> chunk = new ArrayList<>(LOOKUP_CHUNK_SIZE);
+        for (String hash : hashes) {
+            chunk.add(hash);
+            if (chunk.size() == LOOKUP_CHUNK_SIZE) {
+                existing.addAll(newsRepository.findExistingSourceUrlHashes(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            existing.addAll(newsRepository.findExistingSourceUrlHashes(chunk));
+        }
+        return existing;
+    }
+}
@@ -0,0 +1,133 @@
+package com.androidnews.service;
+
+import com.androidnews.dto.NewsDTO;
+import com.androidnews.event.NewsDeletedEvent;
+import com.androidnews.event.NewsIngestedEvent;
+import com.androidnews.model.News;
+import com.androidnews.model.NewsJson;
+import com.androidnews.repository.NewsJsonRepository;
+import com.androidnews.repository.NewsRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NewsJsonService {
+
+    // Bump whenever NewsDTO or the Jackson setup changes; older rows are re-rendered at startup
+    public static final int RENDER_VERSION = 2;
+
+    private static final int CHUNK_SIZE = 500;
+    private static final byte[] RELATED_OPEN = ",\"relatedNews\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RELATED_CLOSE = "]}".getBytes(StandardCharsets.UTF_8);
+
+    private final NewsJsonRepository newsJsonRepository;
+    private final NewsRepository newsRepository;
+    private final NewsService newsService;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    // Rendered with the application's ObjectMapper inside the ingest transaction, so the bytes match what
+    // Jackson would write per request and every stored article has its JSON
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onNewsIngested(NewsIngestedEvent event) {
+        for (News news : event.getNews()) {
+            entityManager.persist(render(news, news.getTags()));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onNewsDeleted(NewsDeletedEvent event) {
+        newsJsonRepository.deleteByNewsIds(List.of(event.getNewsId()));
+    }
+
+    // Stored detail bytes with the related cards spliced in before the closing brace
+    @Transactional(readOnly = true)
+    public byte[] getDetailJson(Long id) {
+        List<byte[]> detail = newsJsonRepository.findDetailJson(id, RENDER_VERSION);
+        if (detail.isEmpty()) {
+            return write(newsService.getNewsById(id));
+        }
+        byte[] article = detail.get(0);
+        List<byte[]> related = newsJsonRepository.findRelatedCardJson(id, RENDER_VERSION);
+
+        int size = article.length + RELATED_OPEN.length + RELATED_CLOSE.length;
+        for (byte[] card : related) {
+            size += card.length + 1;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        out.write(article, 0, article.length - 1);
+        out.write(RELATED_OPEN, 0, RELATED_OPEN.length);
+        for (int i = 0; i < related.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(related.get(i), 0, related.get(i).length);
+        }
+        out.write(RELATED_CLOSE, 0, RELATED_CLOSE.length);
+        return out.toByteArray();
+    }
+
+    // Renders articles stored before this table existed or with an older RENDER_VERSION
+    @Transactional
+    public int backfill() {
+        long started = System.nanoTime();
+        int rendered = 0;
+        long lastId = 0;
+        List<Long> ids;
+        while (!(ids = newsJsonRepository.findIdsWithoutJson(lastId, RENDER_VERSION, PageRequest.of(0, CHUNK_SIZE))).isEmpty()) {
+            rendered += rerender(ids);
+            lastId = ids.get(ids.size() - 1);
+            entityManager.flush();
+            entityManager.clear();
+        }
+        if (rendered > 0) {
+            log.info("Rendered JSON for {} articles in {} ms", rendered, (System.nanoTime() - started) / 1_000_000);
+        }
+        return rendered;
+    }
+
+    // Replaces the JSON of stored articles from their current rows, e.g. after their story changed
+    public int rerender(Collection<Long> ids) {
+        newsJsonRepository.deleteByNewsIds(ids);
+        Map<Long, Set<String>> tagsById = newsService.loadTags(ids);
+        int rendered = 0;
+        for (News news : newsRepository.findWithReferencesByIdIn(ids)) {
+            entityManager.persist(render(news, tagsById.getOrDefault(news.getId(), Set.of())));
+            rendered++;
+        }
+        return rendered;
+    }
+
+    private NewsJson render(News news, Set<String> tags) {
+        NewsDTO card = new NewsDTO(news.getId(), news.getTitle(), news.getSummary(), news.getImageUrl(),
+                news.getPublishDate(), news.getSource().getName(), news.getSource().getLogoUrl(),
+                news.getCategory().getName(), news.getCategory().getSlug(), news.getStoryId());
+        NewsDTO detail = newsService.convertToDTO(news, tags);
+        return new NewsJson(news.getId(), RENDER_VERSION, write(card), write(detail));
+    }
+
+    private byte[] write(NewsDTO dto) {
+        try {
+            return objectMapper.writeValueAsBytes(dto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to render news " + dto.getId(), e);
+        }
+    }
+}
@@ -1,18 +1,37 @@
 package com.androidnews.service;
 
+import com.androidnews.dto.ChangesDTO;
+import com.androidnews.dto.CursorPage;
 import com.androidnews.dto.NewsDTO;
+import com.androidnews.dto.TagDTO;
 import com.androidnews.model.Category;
 import com.androidnews.model.News;
+import com.androidnews.model.NewsCounter;
+import com.androidnews.model.NewsTombstone;
 import com.androidnews.repository.CategoryRepository;
 import com.androidnews.repository.NewsRepository;
+import com.androidnews.repository.NewsTombstoneRepository;
+import com.androidnews.search.InvertedIndex;
+import com.androidnews.util.FeedCursor;
+import com.androidnews.util.FieldSelection;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,56 +40,194 @@ public class NewsService {
 
     private final NewsRepository newsRepository;
     private final CategoryRepository categoryRepository;
+    private final SearchIndexService searchIndexService;
+    private final NewsCounterService newsCounterService;
+    private final NewsTombstoneRepository tombstoneRepository;
 
     @Transactional(readOnly = true)
-    public Page<NewsDTO> getAllNews(Pageable pageable) {
-        return newsRepository.findAllByOrderByPublishDateDesc(pageable)
-                .map(this::convertToDTO);
+    public Page<NewsDTO> getAllNews(Pageable pageable, FieldSelection fields) {
+        return withFields(newsRepository.findAllCards(pageable), fields);
     }
 
     @Transactional(readOnly = true)
-    public Page<NewsDTO> getNewsByCategory(String categorySlug, Pageable pageable) {
+    public Page<NewsDTO> getNewsByCategory(String categorySlug, Pageable pageable, FieldSelection fields) {
         Optional<Category> categoryOpt = categoryRepository.findBySlug(categorySlug);
         if (categoryOpt.isEmpty()) {
             throw new RuntimeException("Category not found: " + categorySlug);
         }
 
-        return newsRepository.findByCategoryOrderByPublishDateDesc(categoryOpt.get(), pageable)
-                .map(this::convertToDTO);
+        return withFields(newsRepository.findCardsByCategory(categoryOpt.get(), pageable), fields);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<NewsDTO> getFeed(FeedCursor cursor, int size, FieldSelection fields) {
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<NewsDTO> rows = cursor == null
+                ? newsRepository.findFeed(limit)
+                : newsRepository.findFeedAfter(cursor.getPublishDate(), cursor.getId(), limit);
+        return toCursorPage(rows, size, fields);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<NewsDTO> getCategoryFeed(String categorySlug, FeedCursor cursor, int size, FieldSelection fields) {
+        Category category = categoryRepository.findBySlug(categorySlug)
+                .orElseThrow(() -> new RuntimeException("Category not found: " + categorySlug));
+
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<NewsDTO> rows = cursor == null
+                ? newsRepository.findCategoryFeed(category, limit)
+                : newsRepository.findCategoryFeedAfter(category, cursor.getPublishDate(), cursor.getId(), limit);
+        return toCursorPage(rows, size, fields);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<NewsDTO> getTagFeed(String tag, FeedCursor cursor, int size, FieldSelection fields) {
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<NewsDTO> rows = cursor == null
+                ? newsRepository.findTagFeed(tag, limit)
+                : newsRepository.findTagFeedAfter(tag, cursor.getPublishDate(), cursor.getId(), limit);
+        return toCursorPage(rows, size, fields);
+    }
+
+    @Transactional(readOnly = true)
+    public List<NewsDTO> getStory(Long storyId) {
+        List<NewsDTO> cards = newsRepository.findStoryCards(storyId);
+        if (cards.isEmpty()) {
+            throw new RuntimeException("Story not found: " + storyId);
+        }
+        return cards;
     }
 
     @Transactional(readOnly = true)
     public NewsDTO getNewsById(Long id) {
-        News news = newsRepository.findById(id)
+        News news = newsRepository.findWithReferencesById(id)
                 .orElseThrow(() -> new RuntimeException("News not found with id: " + id));
 
-        NewsDTO newsDTO = convertToDTO(news);
+        NewsDTO newsDTO = convertToDTO(news, loadTags(List.of(id)).getOrDefault(id, Set.of()));
 
-        // Get related news
-        List<NewsDTO> relatedNews = newsRepository.findRelatedNews(id)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
-
-        // Set related news (would need to add this field to NewsDTO)
-        // newsDTO.setRelatedNews(relatedNews);
+        // Related cards are precomputed at ingest time by RelatedNewsService
+        newsDTO.setRelatedNews(newsRepository.findRelatedCards(id));
 
         return newsDTO;
     }
 
     @Transactional(readOnly = true)
-    public Page<NewsDTO> searchNews(String query, Pageable pageable) {
-        return newsRepository.search(query, pageable)
-                .map(this::convertToDTO);
+    public Page<NewsDTO> searchNews(String query, Pageable pageable, FieldSelection fields) {
+        // The LIKE scan only serves requests until the in-memory index has finished its first build
+        if (!searchIndexService.isReady()) {
+            Page<News> page = newsRepository.search(query, pageable);
+            Map<Long, Set<String>> tagsById = loadTags(page.map(News::getId).getContent());
+            return page
+                    .map(news -> convertToDTO(news, tagsById.getOrDefault(news.getId(), Set.of())))
+                    .map(fields::apply);
+        }
+
+        InvertedIndex.SearchHits hits = searchIndexService.search(query, (int) pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(withFields(findCardsInOrder(hits.getNewsIds()), fields), pageable, hits.getTotal());
+    }
+
+    @Transactional(readOnly = true)
+    public Page<NewsDTO> getNewsByTag(String tag, Pageable pageable, FieldSelection fields) {
+        return withFields(newsRepository.findCardsByTag(tag, pageable), fields);
+    }
+
+    @Transactional(readOnly = true)
+    public List<TagDTO> getPopularTags(int limit) {
+        return newsCounterService.getTop(NewsCounter.Dimension.TAG, limit).stream()
+                .map(counter -> new TagDTO(counter.getCounterKey(), counter.getNewsCount()))
+                .collect(Collectors.toList());
     }
 
+    // Articles and tombstones are two range scans on their sequence indexes, merged in sequence order
     @Transactional(readOnly = true)
-    public Page<NewsDTO> getNewsByTag(String tag, Pageable pageable) {
-        return newsRepository.findByTag(tag, pageable)
-                .map(this::convertToDTO);
+    public ChangesDTO getChanges(long since, int limit, FieldSelection fields) {
+        Pageable range = PageRequest.of(0, limit + 1);
+        List<Object[]> changed = newsRepository.findChanges(since, range);
+        List<NewsTombstone> tombstones = tombstoneRepository.findChanges(since, range);
+
+        List<Long> ids = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        long nextSince = since;
+        int i = 0;
+        int j = 0;
+        while (ids.size() + deleted.size() < limit && (i < changed.size() || j < tombstones.size())) {
+            long changedSeq = i < changed.size() ? (Long) changed.get(i)[0] : Long.MAX_VALUE;
+            long tombstoneSeq = j < tombstones.size() ? tombstones.get(j).getSeq() : Long.MAX_VALUE;
+            if (changedSeq < tombstoneSeq) {
+                ids.add((Long) changed.get(i++)[1]);
+                nextSince = changedSeq;
+            } else {
+                deleted.add(tombstones.get(j++).getNewsId());
+                nextSince = tombstoneSeq;
+            }
+        }
+        boolean hasMore = i < changed.size() || j < tombstones.size();
+        return new ChangesDTO(withFields(findCardsInOrder(ids), fields), deleted, nextSince, hasMore);
+    }
+
+    // One extra row is fetched to learn whether another page exists without a COUNT query
+    private CursorPage<NewsDTO> toCursorPage(List<NewsDTO> rows, int size, FieldSelection fields) {
+        boolean hasMore = rows.size() > size;
+        List<NewsDTO> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            NewsDTO last = page.get(page.size() - 1);
+            nextCursor = new FeedCursor(last.getPublishDate(), last.getId()).encode();
+        }
+        return new CursorPage<>(withFields(page, fields), nextCursor, hasMore);
+    }
+
+    private Page<NewsDTO> withFields(Page<NewsDTO> cards, FieldSelection fields) {
+        return new PageImpl<>(withFields(cards.getContent(), fields), cards.getPageable(), cards.getTotalElements());
+    }
+
+    private List<NewsDTO> findCardsInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, NewsDTO> cardsById = newsRepository.findCardsByIds(ids).stream()
+                .collect(Collectors.toMap(NewsDTO::getId, Function.identity()));
+        return ids.stream()
+                .map(cardsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    // Cards come straight from the projection; entities (with source and category joined) and tags are each
+    // loaded in a single extra statement, and only when a requested field is not on the card
+    private List<NewsDTO> withFields(List<NewsDTO> cards, FieldSelection fields) {
+        List<NewsDTO> items = cards;
+        List<Long> ids = cards.stream().map(NewsDTO::getId).collect(Collectors.toList());
+        if (!ids.isEmpty() && fields.needsEntity()) {
+            Map<Long, News> newsById = newsRepository.findWithReferencesByIdIn(ids).stream()
+                    .collect(Collectors.toMap(News::getId, Function.identity()));
+            Map<Long, Set<String>> tagsById = fields.needsTags() ? loadTags(ids) : Map.of();
+            items = ids.stream()
+                    .map(newsById::get)
+                    .filter(Objects::nonNull)
+                    .map(news -> convertToDTO(news, tagsById.getOrDefault(news.getId(), Set.of())))
+                    .collect(Collectors.toList());
+        } else if (!ids.isEmpty() && fields.needsTags()) {
+            Map<Long, Set<String>> tagsById = loadTags(ids);
+            cards.forEach(card -> card.setTags(tagsById.getOrDefault(card.getId(), Set.of())));
+        }
+        return items.stream()
+                .map(fields::apply)
+                .collect(Collectors.toList());
+    }
+
+    Map<Long, Set<String>> loadTags(Collection<Long> ids) {
+        Map<Long, Set<String>> tagsById = new HashMap<>();
+        if (ids.isEmpty()) {
+            return tagsById;
+        }
+        for (Object[] row : newsRepository.findTagsByNewsIds(ids)) {
+            tagsById.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((String) row[1]);
+        }
+        return tagsById;
     }
 
-    private NewsDTO convertToDTO(News news) {
+    NewsDTO convertToDTO(News news, Set<String> tags) {
         NewsDTO dto = new NewsDTO();
         dto.setId(news.getId());
         dto.setTitle(news.getTitle());
@@ -84,10 +241,11 @@ public class NewsService {
         dto.setSourceLogoUrl(news.getSource().getLogoUrl());
         dto.setCategory(news.getCategory().getName());
         dto.setCategorySlug(news.getCategory().getSlug());
-        dto.setTags(news.getTags());
+        dto.setTags(tags);
         dto.setAuthor(news.getAuthor());
         dto.setAuthorBio(news.getAuthorBio());
         dto.setAuthorAvatar(news.getAuthorAvatar());
+        dto.setStoryId(news.getStoryId());
         return dto;
     }
 }
@@ -0,0 +1,294 @@
+package com.androidnews.service;
+
+import com.androidnews.dto.NewsDTO;
+import com.androidnews.dto.NewsStreamStatsDTO;
+import com.androidnews.event.NewsIngestedEvent;
+import com.androidnews.model.News;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Connections are held by async servlet requests, not threads; a small shared pool drains per-subscriber queues
+@Service
+@Slf4j
+public class NewsStreamService {
+
+    private static final Event HEARTBEAT = new Event(null, null, null, null);
+
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+    private final int queueCapacity;
+    private final int maxSubscribers;
+    private final long sendTimeoutMillis;
+    private final ExecutorService dispatcher;
+    private final ExecutorService writer;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder eventsPublished = new LongAdder();
+    private final LongAdder eventsSent = new LongAdder();
+    private final LongAdder slowConsumersDropped = new LongAdder();
+    private final LongAdder rejectedSubscriptions = new LongAdder();
+
+    public NewsStreamService(ObjectMapper objectMapper,
+                             @Value("${news-stream.timeout-ms:1800000}") long timeoutMillis,
+                             @Value("${news-stream.queue-capacity:64}") int queueCapacity,
+                             @Value("${news-stream.max-subscribers:10000}") int maxSubscribers,
+                             @Value("${news-stream.dispatch-threads:4}") int dispatchThreads,
+                             @Value("${news-stream.write-threads:64}") int writeThreads,
+                             @Value("${news-stream.send-timeout-ms:5000}") long sendTimeoutMillis) {
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMillis;
+        this.queueCapacity = queueCapacity;
+        this.maxSubscribers = maxSubscribers;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.dispatcher = Executors.newFixedThreadPool(dispatchThreads, namedThreads("news-stream-"));
+        // Writes to clients that stopped reading stay blocked until the servlet container times them out; each
+        // holds a writer thread, so the pool grows on demand up to its limit instead of blocking dispatch
+        this.writer = new ThreadPoolExecutor(dispatchThreads, Math.max(dispatchThreads, writeThreads),
+                60, TimeUnit.SECONDS, new SynchronousQueue<>(), namedThreads("news-stream-write-"));
+    }
+
+    public SseEmitter subscribe(String categorySlug, String tag) {
+        if (subscribers.size() >= maxSubscribers) {
+            rejectedSubscriptions.increment();
+            throw new IllegalStateException("Too many stream subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, categorySlug, tag, new ArrayBlockingQueue<>(queueCapacity));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        // An initial comment commits the response headers so clients see the stream open immediately
+        enqueue(subscriber, HEARTBEAT);
+        return emitter;
+    }
+
+    // Each article is serialized once, however many subscribers receive it
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onNewsIngested(NewsIngestedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        List<Event> events = new ArrayList<>();
+        for (News news : event.getNews()) {
+            NewsDTO card = new NewsDTO(news.getId(), news.getTitle(), news.getSummary(), news.getImageUrl(),
+                    news.getPublishDate(), news.getSource().getName(), news.getSource().getLogoUrl(),
+                    news.getCategory().getName(), news.getCategory().getSlug(), news.getStoryId());
+            card.setTags(news.getTags());
+            try {
+                events.add(new Event(String.valueOf(news.getId()), objectMapper.writeValueAsString(card),
+                        news.getCategory().getSlug(), news.getTags()));
+            } catch (JsonProcessingException e) {
+                log.warn("Failed to serialize stream event for news {}", news.getId(), e);
+            }
+        }
+        eventsPublished.add(events.size());
+
+        for (Subscriber subscriber : subscribers) {
+            for (Event streamEvent : events) {
+                if (subscriber.accepts(streamEvent) && !enqueue(subscriber, streamEvent)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    // Keeps idle connections open through proxies and detects clients that went away
+    @Scheduled(fixedDelayString = "${news-stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, HEARTBEAT);
+        }
+    }
+
+    public NewsStreamStatsDTO getStats() {
+        return new NewsStreamStatsDTO(subscribers.size(), eventsPublished.sum(), eventsSent.sum(),
+                slowConsumersDropped.sum(), rejectedSubscriptions.sum());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        writer.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    // A full queue means the client is not reading; it is disconnected rather than slowing everyone else,
+    // and catches up from /news/feed when it reconnects
+    private boolean enqueue(Subscriber subscriber, Event event) {
+        if (!subscriber.queue.offer(event)) {
+            if (subscribers.remove(subscriber)) {
+                slowConsumersDropped.increment();
+                // The emitter is closed by the dispatcher: a send blocked on this client holds the emitter's
+                // lock, and the ingest thread must never wait for it
+                subscriber.closed = true;
+                schedule(subscriber);
+            }
+            return false;
+        }
+        schedule(subscriber);
+        return true;
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Event event;
+            while (!subscriber.closed && (event = subscriber.queue.poll()) != null) {
+                boolean sent = event == HEARTBEAT
+                        ? send(subscriber, SseEmitter.event().comment("keep-alive"))
+                        : send(subscriber, SseEmitter.event()
+                                .id(event.id)
+                                .name("news")
+                                .data(event.json, MediaType.APPLICATION_JSON));
+                if (!sent) {
+                    dropStalled(subscriber);
+                    return;
+                }
+                if (event != HEARTBEAT) {
+                    eventsSent.increment();
+                }
+            }
+            if (subscriber.closed) {
+                subscriber.queue.clear();
+                subscriber.emitter.completeWithError(new IllegalStateException("Stream consumer too slow"));
+                return;
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            subscriber.closed = true;
+            subscriber.queue.clear();
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // An event enqueued after the last poll but before the flag was cleared would otherwise wait
+        if (!subscriber.queue.isEmpty()) {
+            schedule(subscriber);
+        }
+    }
+
+    // The write runs on a writer thread so the dispatcher waits at most the send timeout; false means the client
+    // stopped reading (or every writer is already stuck on one that did)
+    private boolean send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        Future<?> write;
+        try {
+            write = writer.submit(() -> {
+                subscriber.emitter.send(event);
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+        try {
+            write.get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void dropStalled(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            slowConsumersDropped.increment();
+        }
+        subscriber.closed = true;
+        subscriber.queue.clear();
+        log.debug("Dropped stream subscriber whose write did not finish within {} ms", sendTimeoutMillis);
+        // Completing takes the emitter's lock, which the stuck write still holds, so it must not run here
+        try {
+            writer.execute(() -> subscriber.emitter.completeWithError(new IllegalStateException("Stream consumer stalled")));
+        } catch (RejectedExecutionException e) {
+            // The emitter's own timeout closes it
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class Event {
+        private final String id;
+        private final String json;
+        private final String categorySlug;
+        private final Set<String> tags;
+
+        Event(String id, String json, String categorySlug, Set<String> tags) {
+            this.id = id;
+            this.json = json;
+            this.categorySlug = categorySlug;
+            this.tags = tags;
+        }
+    }
+
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private final String categorySlug;
+        private final String tag;
+        private final BlockingQueue<Event> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, String categorySlug, String tag, BlockingQueue<Event> queue) {
+            this.emitter = emitter;
+            this.categorySlug = categorySlug;
+            this.tag = tag;
+            this.queue = queue;
+        }
+
+        boolean accepts(Event event) {
+            return (categorySlug == null || categorySlug.equals(event.categorySlug))
+                    && (tag == null || event.tags.contains(tag));
+        }
+    }
+}
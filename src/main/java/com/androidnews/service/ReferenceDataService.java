@@ -0,0 +1,77 @@
+package com.androidnews.service;
+
+import com.androidnews.model.Category;
+import com.androidnews.model.Source;
+import com.androidnews.repository.CategoryRepository;
+import com.androidnews.repository.SourceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReferenceDataService {
+
+    private final CategoryRepository categoryRepository;
+    private final SourceRepository sourceRepository;
+
+    private volatile Snapshot snapshot;
+
+    public synchronized void refresh() {
+        Map<String, Category> categoriesBySlug = new LinkedHashMap<>();
+        categoryRepository.findAll(Sort.by("id"))
+                .forEach(category -> categoriesBySlug.put(category.getSlug(), category));
+        Map<String, Source> sourcesByName = new HashMap<>();
+        sourceRepository.findAll().forEach(source -> sourcesByName.put(source.getName(), source));
+        snapshot = new Snapshot(categoriesBySlug, sourcesByName);
+        log.debug("Loaded reference data: {} categories, {} sources", categoriesBySlug.size(), sourcesByName.size());
+    }
+
+    public Optional<Category> findCategory(String slug) {
+        return Optional.ofNullable(current().categoriesBySlug.get(slug));
+    }
+
+    public Collection<Category> getCategories() {
+        return current().categoriesBySlug.values();
+    }
+
+    public Optional<Source> findSource(String name) {
+        return Optional.ofNullable(current().sourcesByName.get(name));
+    }
+
+    public Source getOrCreateSource(String name, Supplier<Source> factory) {
+        Source source = current().sourcesByName.get(name);
+        if (source != null) {
+            return source;
+        }
+        synchronized (this) {
+            source = sourceRepository.findByName(name).orElseGet(() -> sourceRepository.save(factory.get()));
+            refresh();
+            return source;
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private static class Snapshot {
+        private final Map<String, Category> categoriesBySlug;
+        private final Map<String, Source> sourcesByName;
+
+        Snapshot(Map<String, Category> categoriesBySlug, Map<String, Source> sourcesByName) {
+            this.categoriesBySlug = Collections.unmodifiableMap(categoriesBySlug);
+            this.sourcesByName = Collections.unmodifiableMap(sourcesByName);
+        }
+    }
+}
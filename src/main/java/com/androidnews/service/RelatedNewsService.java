@@ -0,0 +1,205 @@
+package com.androidnews.service;
+
+import com.androidnews.event.NewsDeletedEvent;
+import com.androidnews.event.NewsIngestedEvent;
+import com.androidnews.model.News;
+import com.androidnews.model.RelatedNews;
+import com.androidnews.repository.NewsRepository;
+import com.androidnews.repository.RelatedNewsRepository;
+import com.androidnews.search.RelatedNewsIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.persistence.EntityManager;
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RelatedNewsService {
+
+    public static final int RELATED_LIMIT = 5;
+
+    private static final int POSTING_LIMIT = 1000;
+    private static final int WARM_UP_LIMIT = 20_000;
+    private static final int CHUNK_SIZE = 500;
+    // A new article is offered to the related lists of its strongest matches only, not every article sharing a tag
+    private static final int REVERSE_UPDATE_LIMIT = RELATED_LIMIT * 2;
+
+    private static final Comparator<RelatedNews> WORST_FIRST = Comparator
+            .comparingInt(RelatedNews::getScore)
+            .thenComparingLong(RelatedNews::getRelatedId);
+
+    private final NewsRepository newsRepository;
+    private final RelatedNewsRepository relatedNewsRepository;
+    private final EntityManager entityManager;
+
+    private final RelatedNewsIndex index = new RelatedNewsIndex(POSTING_LIMIT);
+
+    // Runs inside the ingest transaction so related rows commit together with the articles
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onNewsIngested(NewsIngestedEvent event) {
+        update(articlesOf(event));
+    }
+
+    // The shared index only learns about articles that committed, so a rolled-back ingest leaves no ids behind
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onNewsIngestedCommitted(NewsIngestedEvent event) {
+        for (Article article : articlesOf(event)) {
+            index.index(article.getId(), article.getCategoryId(), article.getTags());
+        }
+    }
+
+    // Lists that pointed at the article lose that entry and refill as newer articles arrive
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onNewsDeleted(NewsDeletedEvent event) {
+        relatedNewsRepository.deleteByArticle(event.getNewsId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onNewsDeletedCommitted(NewsDeletedEvent event) {
+        index.remove(event.getNewsId());
+    }
+
+    // Replays the most recent articles into the in-memory index; related rows are only written when the
+    // table is still empty, i.e. for databases created before related news were stored
+    @Transactional
+    public int warmUp() {
+        long started = System.nanoTime();
+        boolean backfill = relatedNewsRepository.count() == 0;
+        List<Object[]> recent = new ArrayList<>(newsRepository.findRecentIdsWithCategory(PageRequest.of(0, WARM_UP_LIMIT)));
+        Collections.reverse(recent);
+
+        for (int from = 0; from < recent.size(); from += CHUNK_SIZE) {
+            List<Object[]> chunk = recent.subList(from, Math.min(from + CHUNK_SIZE, recent.size()));
+            List<Long> ids = new ArrayList<>();
+            for (Object[] row : chunk) {
+                ids.add((Long) row[0]);
+            }
+            Map<Long, Set<String>> tagsById = new HashMap<>();
+            for (Object[] row : newsRepository.findTagsByNewsIds(ids)) {
+                tagsById.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((String) row[1]);
+            }
+
+            List<Article> articles = new ArrayList<>();
+            for (Object[] row : chunk) {
+                Long id = (Long) row[0];
+                articles.add(new Article(id, (Long) row[1], tagsById.getOrDefault(id, Collections.emptySet())));
+            }
+            if (backfill) {
+                update(articles);
+                entityManager.flush();
+                entityManager.clear();
+            }
+            for (Article article : articles) {
+                index.index(article.getId(), article.getCategoryId(), article.getTags());
+            }
+        }
+
+        log.info("Warmed related news index with {} articles in {} ms{}", recent.size(),
+                (System.nanoTime() - started) / 1_000_000, backfill ? " (backfilled related rows)" : "");
+        return recent.size();
+    }
+
+    private static List<Article> articlesOf(NewsIngestedEvent event) {
+        List<Article> articles = new ArrayList<>();
+        for (News news : event.getNews()) {
+            articles.add(new Article(news.getId(), news.getCategory().getId(), news.getTags()));
+        }
+        articles.sort(Comparator.comparingLong(Article::getId));
+        return articles;
+    }
+
+    // Articles are matched against the shared index and against earlier articles of the same batch, which are
+    // held in a batch-local index until they commit
+    private void update(List<Article> articles) {
+        // Lists of the new articles start empty and are filled in memory; nothing is persisted before the
+        // lookup below, so it does not trigger an auto-flush
+        RelatedNewsIndex batch = new RelatedNewsIndex(POSTING_LIMIT);
+        Map<Long, List<RelatedNews>> lists = new HashMap<>();
+        Map<Long, List<RelatedNews>> offers = new LinkedHashMap<>();
+        for (Article article : articles) {
+            List<RelatedNewsIndex.Match> matches = RelatedNewsIndex.best(
+                    index.match(article.getId(), article.getCategoryId(), article.getTags(), REVERSE_UPDATE_LIMIT),
+                    batch.add(article.getId(), article.getCategoryId(), article.getTags(), REVERSE_UPDATE_LIMIT),
+                    REVERSE_UPDATE_LIMIT);
+            List<RelatedNews> own = new ArrayList<>();
+            lists.put(article.getId(), own);
+            for (int i = 0; i < matches.size(); i++) {
+                RelatedNewsIndex.Match match = matches.get(i);
+                if (i < RELATED_LIMIT) {
+                    own.add(new RelatedNews(article.getId(), match.getNewsId(), match.getScore()));
+                }
+                offers.computeIfAbsent(match.getNewsId(), id -> new ArrayList<>())
+                        .add(new RelatedNews(match.getNewsId(), article.getId(), match.getScore()));
+            }
+        }
+        Set<RelatedNews> inserts = new LinkedHashSet<>();
+        for (List<RelatedNews> own : lists.values()) {
+            inserts.addAll(own);
+        }
+
+        List<Long> stored = new ArrayList<>();
+        for (Long id : offers.keySet()) {
+            if (!lists.containsKey(id)) {
+                stored.add(id);
+            }
+        }
+        for (int from = 0; from < stored.size(); from += CHUNK_SIZE) {
+            for (RelatedNews row : relatedNewsRepository.findByNewsIds(stored.subList(from, Math.min(from + CHUNK_SIZE, stored.size())))) {
+                lists.computeIfAbsent(row.getNewsId(), id -> new ArrayList<>()).add(row);
+            }
+        }
+
+        // Older articles keep their top list: a new article replaces the weakest entry only when it scores higher
+        for (Map.Entry<Long, List<RelatedNews>> entry : offers.entrySet()) {
+            List<RelatedNews> rows = lists.computeIfAbsent(entry.getKey(), id -> new ArrayList<>());
+            for (RelatedNews offer : entry.getValue()) {
+                if (rows.size() >= RELATED_LIMIT) {
+                    RelatedNews worst = Collections.min(rows, WORST_FIRST);
+                    if (WORST_FIRST.compare(offer, worst) <= 0) {
+                        continue;
+                    }
+                    rows.remove(worst);
+                    if (!inserts.remove(worst)) {
+                        entityManager.remove(worst);
+                    }
+                }
+                rows.add(offer);
+                inserts.add(offer);
+            }
+        }
+        for (RelatedNews row : inserts) {
+            entityManager.persist(row);
+        }
+    }
+
+    private static class Article {
+        private final Long id;
+        private final Long categoryId;
+        private final Set<String> tags;
+
+        Article(Long id, Long categoryId, Set<String> tags) {
+            this.id = id;
+            this.categoryId = categoryId;
+            this.tags = tags;
+        }
+
+        Long getId() {
+            return id;
+        }
+
+        Long getCategoryId() {
+            return categoryId;
+        }
+
+        Set<String> getTags() {
+            return tags;
+        }
+    }
+}
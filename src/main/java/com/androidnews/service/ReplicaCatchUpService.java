@@ -0,0 +1,185 @@
+package com.androidnews.service;
+
+import com.androidnews.event.NewsDeletedEvent;
+import com.androidnews.event.NewsIngestedEvent;
+import com.androidnews.model.News;
+import com.androidnews.model.NewsFingerprint;
+import com.androidnews.model.NewsTombstone;
+import com.androidnews.repository.NewsFingerprintRepository;
+import com.androidnews.repository.NewsRepository;
+import com.androidnews.repository.NewsTombstoneRepository;
+import com.androidnews.search.MinHasher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// The in-memory indexes and the stream learn about ingests from local after-commit events, but with crawl leases
+// most articles are written by other nodes. Every node follows the shared ingest sequence and tombstones and
+// replays what others committed into the same services, so search, related news, story matching and the stream
+// see every article whichever node stored it. Feed versions and the feed cache are shared through the database
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReplicaCatchUpService {
+
+    private static final int PAGE_SIZE = 500;
+
+    private final NewsRepository newsRepository;
+    private final NewsTombstoneRepository tombstoneRepository;
+    private final NewsFingerprintRepository fingerprintRepository;
+    private final SearchIndexService searchIndexService;
+    private final RelatedNewsService relatedNewsService;
+    private final StoryService storyService;
+    private final NewsStreamService newsStreamService;
+    private final FeedCacheService feedCacheService;
+
+    // Sequence values this node committed itself, whose events already reached the services
+    private final NavigableSet<Long> appliedLocally = new ConcurrentSkipListSet<>();
+    private volatile long syncedSeq;
+
+    // Taken before the startup index rebuilds read the tables, so whatever commits after them is replayed
+    @PostConstruct
+    public void start() {
+        syncedSeq = currentSeq();
+    }
+
+    // Recorded before commit: a poll right after the commit must not replay it again. The sequence is row-locked,
+    // so nothing else can commit these values; a rollback frees them for reuse and they are forgotten
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onNewsIngested(NewsIngestedEvent event) {
+        for (News news : event.getNews()) {
+            appliedLocally.add(news.getIngestSeq());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void onNewsIngestRolledBack(NewsIngestedEvent event) {
+        for (News news : event.getNews()) {
+            appliedLocally.remove(news.getIngestSeq());
+        }
+    }
+
+    // Sequence values commit in allocation order, so everything up to the last value read has been seen
+    @Scheduled(fixedDelayString = "${cluster.catch-up-ms:5000}", initialDelayString = "${cluster.catch-up-ms:5000}")
+    @Transactional(readOnly = true)
+    public void catchUp() {
+        long since = syncedSeq;
+        while (true) {
+            List<Object[]> changes = newsRepository.findChanges(since, PageRequest.of(0, PAGE_SIZE));
+            List<NewsTombstone> tombstones = tombstoneRepository.findChanges(since, PageRequest.of(0, PAGE_SIZE));
+            if (changes.isEmpty() && tombstones.isEmpty()) {
+                break;
+            }
+            // A full page may stop short of the other's, so only what both have covered is taken this round
+            long upTo = Long.MAX_VALUE;
+            if (changes.size() == PAGE_SIZE) {
+                upTo = (Long) changes.get(changes.size() - 1)[0];
+            }
+            if (tombstones.size() == PAGE_SIZE) {
+                upTo = Math.min(upTo, tombstones.get(tombstones.size() - 1).getSeq());
+            }
+
+            long last = since;
+            Map<Long, Long> remote = new HashMap<>();
+            for (Object[] change : changes) {
+                long seq = (Long) change[0];
+                if (seq > upTo) {
+                    break;
+                }
+                last = seq;
+                if (!appliedLocally.remove(seq)) {
+                    remote.put((Long) change[1], seq);
+                }
+            }
+            replay(remote, since);
+            for (NewsTombstone tombstone : tombstones) {
+                if (tombstone.getSeq() > upTo) {
+                    break;
+                }
+                last = Math.max(last, tombstone.getSeq());
+                replayDelete(tombstone.getNewsId());
+            }
+            since = last;
+            appliedLocally.headSet(since, true).clear();
+            syncedSeq = since;
+        }
+    }
+
+    public long getSyncedSeq() {
+        return syncedSeq;
+    }
+
+    // Articles inserted since the last poll go everywhere a local ingest would. Older ones came back because they
+    // joined or left a story: only the story index and the cached feeds hold anything that changed
+    private void replay(Map<Long, Long> remote, long since) {
+        if (remote.isEmpty()) {
+            return;
+        }
+        List<News> articles = new ArrayList<>(newsRepository.findWithReferencesByIdIn(remote.keySet()));
+        articles.sort((a, b) -> Long.compare(remote.get(a.getId()), remote.get(b.getId())));
+        Map<Long, int[]> signatures = new HashMap<>();
+        for (NewsFingerprint fingerprint : fingerprintRepository.findAllById(remote.keySet())) {
+            signatures.put(fingerprint.getNewsId(), MinHasher.fromBytes(fingerprint.getSignature()));
+        }
+        List<News> inserted = new ArrayList<>();
+        List<News> updated = new ArrayList<>();
+        for (News news : articles) {
+            news.setFingerprint(signatures.get(news.getId()));
+            if (news.getInsertSeq() != null && news.getInsertSeq() > since) {
+                inserted.add(news);
+            } else {
+                updated.add(news);
+            }
+        }
+        if (!inserted.isEmpty()) {
+            NewsIngestedEvent event = new NewsIngestedEvent(inserted);
+            searchIndexService.onNewsIngested(event);
+            // Related postings append, and the startup warm-up may already have read an article stored since start()
+            for (News news : inserted) {
+                relatedNewsService.onNewsDeletedCommitted(deleted(news.getId()));
+            }
+            relatedNewsService.onNewsIngestedCommitted(event);
+            storyService.onNewsIngested(event);
+            newsStreamService.onNewsIngested(event);
+            feedCacheService.onNewsIngested(event);
+        }
+        if (!updated.isEmpty()) {
+            NewsIngestedEvent event = new NewsIngestedEvent(updated);
+            storyService.onNewsIngested(event);
+            feedCacheService.onNewsIngested(event);
+        }
+        log.debug("Caught up with {} new and {} changed articles from other nodes", inserted.size(), updated.size());
+    }
+
+    // A deleted story root was already replaced in the database, and its members come back as updates
+    private void replayDelete(Long newsId) {
+        NewsDeletedEvent event = deleted(newsId);
+        searchIndexService.onNewsDeleted(event);
+        relatedNewsService.onNewsDeletedCommitted(event);
+        storyService.onNewsDeletedCommitted(event);
+    }
+
+    private static NewsDeletedEvent deleted(Long newsId) {
+        return new NewsDeletedEvent(newsId, null, null, null, Collections.emptySet());
+    }
+
+    private long currentSeq() {
+        Long news = newsRepository.findMaxIngestSeq();
+        Long tombstone = tombstoneRepository.findMaxSeq();
+        return Math.max(news == null ? 0 : news, tombstone == null ? 0 : tombstone);
+    }
+}
@@ -0,0 +1,100 @@
+package com.androidnews.service;
+
+import com.androidnews.dto.SearchIndexStatsDTO;
+import com.androidnews.event.NewsDeletedEvent;
+import com.androidnews.event.NewsIngestedEvent;
+import com.androidnews.model.News;
+import com.androidnews.repository.NewsRepository;
+import com.androidnews.search.InvertedIndex;
+import com.androidnews.util.HtmlParser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SearchIndexService {
+
+    private final NewsRepository newsRepository;
+    private final HtmlParser htmlParser;
+
+    private volatile InvertedIndex index = new InvertedIndex();
+    private volatile InvertedIndex building;
+    private volatile boolean ready;
+    private volatile long lastRebuildMillis;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread thread = new Thread(this::rebuild, "search-index-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized int rebuild() {
+        long started = System.nanoTime();
+        InvertedIndex fresh = new InvertedIndex();
+        // Articles ingested while the rebuild runs are added to both indexes, so nothing is lost on swap
+        building = fresh;
+        try {
+            long lastId = 0;
+            List<News> chunk;
+            while (!(chunk = newsRepository.findTop500ByIdGreaterThanOrderByIdAsc(lastId)).isEmpty()) {
+                for (News news : chunk) {
+                    add(fresh, news);
+                    lastId = news.getId();
+                }
+            }
+            index = fresh;
+            ready = true;
+        } finally {
+            building = null;
+        }
+        lastRebuildMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Rebuilt search index with {} articles in {} ms", fresh.size(), lastRebuildMillis);
+        return fresh.size();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onNewsIngested(NewsIngestedEvent event) {
+        for (News news : event.getNews()) {
+            add(index, news);
+            InvertedIndex pending = building;
+            if (pending != null) {
+                add(pending, news);
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onNewsDeleted(NewsDeletedEvent event) {
+        index.remove(event.getNewsId());
+        InvertedIndex pending = building;
+        if (pending != null) {
+            pending.remove(event.getNewsId());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public InvertedIndex.SearchHits search(String query, int offset, int limit) {
+        return index.search(query, offset, limit);
+    }
+
+    public SearchIndexStatsDTO getStats() {
+        InvertedIndex current = index;
+        return new SearchIndexStatsDTO(ready, current.size(), current.termCount(), lastRebuildMillis);
+    }
+
+    private void add(InvertedIndex target, News news) {
+        target.add(news.getId(), news.getTitle(), news.getSummary(), htmlParser.extractText(news.getContent()));
+    }
+}
@@ -0,0 +1,291 @@
+package com.androidnews.service;
+
+import com.androidnews.dto.StoryIndexStatsDTO;
+import com.androidnews.event.NewsDeletedEvent;
+import com.androidnews.event.NewsIngestedEvent;
+import com.androidnews.model.News;
+import com.androidnews.model.NewsFingerprint;
+import com.androidnews.repository.NewsFingerprintRepository;
+import com.androidnews.repository.NewsRepository;
+import com.androidnews.search.MinHasher;
+import com.androidnews.search.StoryIndex;
+import com.androidnews.util.HtmlParser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// Groups near-duplicate articles from different sources into one story. Every article after the first points its
+// storyId at the earliest member, and feeds show only that lead article
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StoryService {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final NewsRepository newsRepository;
+    private final NewsFingerprintRepository fingerprintRepository;
+    private final EntityManager entityManager;
+    private final HtmlParser htmlParser;
+    private final NewsJsonService newsJsonService;
+    private final SyncSequenceService syncSequenceService;
+    private final FeedVersionService feedVersionService;
+    private final FeedCacheService feedCacheService;
+
+    @Value("${story.similarity-threshold:0.6}")
+    private double similarityThreshold;
+
+    @Value("${story.window-hours:72}")
+    private long windowHours;
+
+    private volatile StoryIndex index = new StoryIndex();
+    private volatile StoryIndex building;
+    private volatile boolean ready;
+    private volatile long lastRebuildMillis;
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder lookupNanos = new LongAdder();
+
+    public Batch startBatch() {
+        return new Batch();
+    }
+
+    // Runs before the article is persisted so its storyId goes out with the insert
+    public void assign(Batch batch, News news) {
+        news.setStoryId(null);
+        if (news.getFingerprint() == null) {
+            news.setFingerprint(MinHasher.signature(news.getTitle() + " " + htmlParser.extractText(news.getContent())));
+        }
+        int[] signature = news.getFingerprint();
+        if (signature == null || news.getPublishDate() == null) {
+            return;
+        }
+
+        long started = System.nanoTime();
+        long published = epochSecond(news.getPublishDate());
+        long window = windowHours * 3600;
+        // Earlier articles of the same batch are not in the shared index until after commit. Stored articles
+        // being backfilled are only matched among themselves, so none of them can match its own entry
+        StoryIndex.Match shared = news.getId() == null
+                ? index.findBest(signature, published, window, similarityThreshold) : null;
+        StoryIndex.Match match = better(shared, batch.local.findBest(signature, published, window, similarityThreshold));
+        lookups.increment();
+        lookupNanos.add(System.nanoTime() - started);
+        if (match != null) {
+            matches.increment();
+            news.setStoryId(match.getStoryId());
+            if (match.getStoryId() == match.getNewsId()) {
+                batch.roots.add(match.getStoryId());
+            }
+        }
+    }
+
+    // Runs once the article has its id
+    public void record(Batch batch, News news) {
+        int[] signature = news.getFingerprint();
+        if (signature == null) {
+            return;
+        }
+        entityManager.persist(new NewsFingerprint(news.getId(), MinHasher.toBytes(signature)));
+        batch.local.add(news.getId(), storyOf(news), epochSecond(news.getPublishDate()), signature);
+    }
+
+    // The first duplicate turns a lone article into a story root, which then carries its own id. Roots of this
+    // batch go out with the ingested event; roots stored earlier are rendered again
+    public void finish(Batch batch, List<News> fresh) {
+        if (batch.roots.isEmpty()) {
+            return;
+        }
+        newsRepository.markStoryRoots(batch.roots);
+        Set<Long> stored = new HashSet<>(batch.roots);
+        for (News news : fresh) {
+            if (stored.remove(news.getId())) {
+                news.setStoryId(news.getId());
+            }
+        }
+        storiesChanged(stored);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread thread = new Thread(this::rebuild, "story-index-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized int rebuild() {
+        long started = System.nanoTime();
+        StoryIndex fresh = new StoryIndex();
+        // Articles ingested while the rebuild runs are added to both indexes, so nothing is lost on swap
+        building = fresh;
+        try {
+            long lastId = 0;
+            List<Object[]> chunk;
+            while (!(chunk = fingerprintRepository.findIndexChunk(lastId, PageRequest.of(0, CHUNK_SIZE))).isEmpty()) {
+                for (Object[] row : chunk) {
+                    lastId = (Long) row[0];
+                    int[] signature = MinHasher.fromBytes((byte[]) row[1]);
+                    if (signature != null) {
+                        Long storyId = (Long) row[2];
+                        fresh.add(lastId, storyId == null ? lastId : storyId, epochSecond((LocalDateTime) row[3]), signature);
+                    }
+                }
+            }
+            index = fresh;
+            ready = true;
+        } finally {
+            building = null;
+        }
+        lastRebuildMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Rebuilt story index with {} articles in {} ms", fresh.size(), lastRebuildMillis);
+        return fresh.size();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onNewsIngested(NewsIngestedEvent event) {
+        for (News news : event.getNews()) {
+            if (news.getFingerprint() == null) {
+                continue;
+            }
+            long published = epochSecond(news.getPublishDate());
+            index.add(news.getId(), storyOf(news), published, news.getFingerprint());
+            StoryIndex pending = building;
+            if (pending != null) {
+                pending.add(news.getId(), storyOf(news), published, news.getFingerprint());
+            }
+        }
+    }
+
+    // A deleted root hands the story to its earliest remaining member; a story left with one article dissolves
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onNewsDeleted(NewsDeletedEvent event) {
+        fingerprintRepository.deleteByNewsId(event.getNewsId());
+        Long storyId = event.getStoryId();
+        if (storyId == null) {
+            return;
+        }
+        List<Long> remaining = newsRepository.findIdsByStoryId(storyId);
+        if (remaining.size() <= 1) {
+            newsRepository.reassignStory(storyId, null);
+            storiesChanged(remaining);
+        } else if (storyId.equals(event.getNewsId())) {
+            newsRepository.reassignStory(storyId, Collections.min(remaining));
+            storiesChanged(remaining);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onNewsDeletedCommitted(NewsDeletedEvent event) {
+        for (StoryIndex target : Arrays.asList(index, building)) {
+            if (target != null) {
+                target.remove(event.getNewsId());
+                if (event.getNewsId().equals(event.getStoryId())) {
+                    target.promoteStory(event.getStoryId());
+                }
+            }
+        }
+    }
+
+    // Articles stored before fingerprints existed are clustered among themselves in id order
+    @Transactional
+    public int backfillFingerprints() {
+        long started = System.nanoTime();
+        Batch batch = startBatch();
+        int fingerprinted = 0;
+        long lastId = 0;
+        List<News> chunk;
+        while (!(chunk = newsRepository.findUnfingerprinted(lastId, PageRequest.of(0, CHUNK_SIZE))).isEmpty()) {
+            List<Long> joined = new ArrayList<>();
+            for (News news : chunk) {
+                lastId = news.getId();
+                assign(batch, news);
+                if (news.getFingerprint() == null) {
+                    // Empty articles still get a row so they are not re-read on every start
+                    entityManager.persist(new NewsFingerprint(news.getId(), new byte[0]));
+                } else {
+                    record(batch, news);
+                    fingerprinted++;
+                }
+                if (news.getStoryId() != null) {
+                    joined.add(news.getId());
+                }
+            }
+            entityManager.flush();
+            storiesChanged(joined);
+            entityManager.flush();
+            entityManager.clear();
+        }
+        finish(batch, List.of());
+        if (fingerprinted > 0) {
+            log.info("Fingerprinted {} existing articles into stories in {} ms",
+                    fingerprinted, (System.nanoTime() - started) / 1_000_000);
+        }
+        return fingerprinted;
+    }
+
+    public StoryIndexStatsDTO getStats() {
+        StoryIndex current = index;
+        long count = lookups.sum();
+        return new StoryIndexStatsDTO(ready, current.size(), current.bucketCount(), count, matches.sum(),
+                count == 0 ? 0 : lookupNanos.sum() / count / 1_000, lastRebuildMillis);
+    }
+
+    // Stored articles carry their storyId in the rendered JSON, and a new ingest sequence in the same transaction
+    // puts the change in front of /news/changes clients that already synced past the article. The feeds listing
+    // them change too, so their categories and tags get new versions with it
+    private void storiesChanged(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Long> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        long seq = syncSequenceService.allocate(SyncSequenceService.NEWS, sorted.size());
+        for (Long id : sorted) {
+            newsRepository.updateIngestSeq(id, seq++);
+        }
+        Set<String> slugs = new HashSet<>();
+        Set<String> tags = new HashSet<>();
+        for (int from = 0; from < sorted.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = sorted.subList(from, Math.min(from + CHUNK_SIZE, sorted.size()));
+            newsJsonService.rerender(chunk);
+            slugs.addAll(newsRepository.findCategorySlugsByIds(chunk));
+            tags.addAll(newsRepository.findTagNamesByIds(chunk));
+        }
+        feedVersionService.advance(slugs, tags);
+        feedCacheService.evictAfterCommit(slugs, tags);
+    }
+
+    private static StoryIndex.Match better(StoryIndex.Match a, StoryIndex.Match b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.getSimilarity() >= b.getSimilarity() ? a : b;
+    }
+
+    private static long storyOf(News news) {
+        return news.getStoryId() == null ? news.getId() : news.getStoryId();
+    }
+
+    private static long epochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    // Per-ingest state: articles of this batch and the lone articles that became story roots
+    public static class Batch {
+        private final StoryIndex local = new StoryIndex();
+        private final Set<Long> roots = new HashSet<>();
+    }
+}
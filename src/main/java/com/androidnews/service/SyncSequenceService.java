@@ -0,0 +1,53 @@
+package com.androidnews.service;
+
+import com.androidnews.model.SyncSequence;
+import com.androidnews.repository.SyncSequenceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SyncSequenceService {
+
+    public static final String NEWS = "news";
+
+    private final SyncSequenceRepository syncSequenceRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    // Returns the first of count consecutive values. The row lock is held until the caller commits, so values
+    // become visible in allocation order and a client reading "since" can never skip one committed later
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long allocate(String name, int count) {
+        SyncSequence sequence = syncSequenceRepository.findForUpdate(name).orElse(null);
+        if (sequence == null) {
+            create(name);
+            sequence = syncSequenceRepository.findForUpdate(name)
+                    .orElseThrow(() -> new IllegalStateException("Sequence not found: " + name));
+        }
+        long first = sequence.getNextValue();
+        sequence.setNextValue(first + count);
+        return first;
+    }
+
+    private void create(String name) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            template.executeWithoutResult(status -> {
+                if (!syncSequenceRepository.existsById(name)) {
+                    syncSequenceRepository.saveAndFlush(new SyncSequence(name, 1));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Sequence {} was created concurrently", name);
+        }
+    }
+}
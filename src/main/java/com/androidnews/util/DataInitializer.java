@@ -1,21 +1,30 @@
 package com.androidnews.util;
 
+import com.androidnews.classifier.Classification;
+import com.androidnews.classifier.NewsClassifier;
+import com.androidnews.crawler.FeedItem;
+import com.androidnews.crawler.FeedParser;
+import com.androidnews.crawler.FetchResult;
+import com.androidnews.crawler.PageFetcher;
 import com.androidnews.model.Category;
 import com.androidnews.model.News;
 import com.androidnews.model.Source;
 import com.androidnews.repository.CategoryRepository;
 import com.androidnews.repository.NewsRepository;
 import com.androidnews.repository.SourceRepository;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import com.androidnews.service.NewsBodyMigrationService;
+import com.androidnews.service.NewsCounterService;
+import com.androidnews.service.NewsIngestService;
+import com.androidnews.service.NewsJsonService;
+import com.androidnews.service.ReferenceDataService;
+import com.androidnews.service.RelatedNewsService;
+import com.androidnews.service.StoryService;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
 
 @Component
@@ -24,11 +33,36 @@ public class DataInitializer implements CommandLineRunner {
     private final CategoryRepository categoryRepository;
     private final SourceRepository sourceRepository;
     private final NewsRepository newsRepository;
-
-    public DataInitializer(CategoryRepository categoryRepository, SourceRepository sourceRepository, NewsRepository newsRepository) {
+    private final NewsIngestService newsIngestService;
+    private final ReferenceDataService referenceDataService;
+    private final NewsClassifier newsClassifier;
+    private final NewsCounterService newsCounterService;
+    private final RelatedNewsService relatedNewsService;
+    private final NewsJsonService newsJsonService;
+    private final StoryService storyService;
+    private final NewsBodyMigrationService newsBodyMigrationService;
+    private final FeedParser feedParser;
+    private final PageFetcher pageFetcher;
+
+    public DataInitializer(CategoryRepository categoryRepository, SourceRepository sourceRepository, NewsRepository newsRepository,
+                           NewsIngestService newsIngestService, ReferenceDataService referenceDataService,
+                           NewsClassifier newsClassifier, NewsCounterService newsCounterService,
+                           RelatedNewsService relatedNewsService, NewsJsonService newsJsonService, StoryService storyService,
+                           NewsBodyMigrationService newsBodyMigrationService, FeedParser feedParser,
+                           PageFetcher pageFetcher) {
         this.categoryRepository = categoryRepository;
         this.sourceRepository = sourceRepository;
         this.newsRepository = newsRepository;
+        this.newsIngestService = newsIngestService;
+        this.referenceDataService = referenceDataService;
+        this.newsClassifier = newsClassifier;
+        this.newsCounterService = newsCounterService;
+        this.relatedNewsService = relatedNewsService;
+        this.newsJsonService = newsJsonService;
+        this.storyService = storyService;
+        this.newsBodyMigrationService = newsBodyMigrationService;
+        this.feedParser = feedParser;
+        this.pageFetcher = pageFetcher;
     }
 
     @Override
@@ -39,6 +73,33 @@ public class DataInitializer implements CommandLineRunner {
         // 初始化來源
         initSources();
 
+        // 載入分類與來源快照
+        referenceDataService.refresh();
+
+        // 舊資料的內文若仍在 news.content，提醒以 --migrate.news-bodies 在單一節點搬移
+        newsBodyMigrationService.warnIfPending();
+
+        // 將文章編號序列調整到既有資料的最大編號之後
+        newsIngestService.alignIdSequence();
+
+        // 補上舊資料的網址雜湊
+        newsIngestService.backfillSourceUrlHashes();
+
+        // 為舊資料配置同步序號
+        newsIngestService.backfillIngestSequence();
+
+        // 既有資料尚無計數時以彙總查詢補齊
+        newsCounterService.rebuildIfEmpty();
+
+        // 載入相關新聞索引
+        relatedNewsService.warmUp();
+
+        // 產生尚未預先序列化的文章 JSON
+        newsJsonService.backfill();
+
+        // 為舊資料建立指紋並合併重複報導
+        storyService.backfillFingerprints();
+
         // 抓取新聞
         crawlGoogleNews();
     }
@@ -74,84 +135,51 @@ public class DataInitializer implements CommandLineRunner {
         try {
             if (newsRepository.count() == 0) {
                 // 從Google News抓取Android相關新聞
-                Source source = sourceRepository.findByName("Google News").orElseThrow();
-
-                // 使用Google News RSS訂閱源
-                Document doc = Jsoup.connect("https://news.google.com/rss/search?q=android&hl=zh-TW&gl=TW&ceid=TW:zh-Hant").get();
-                Elements items = doc.select("item");
-
-                for (int i = 0; i < Math.min(20, items.size()); i++) {
-                    Element item = items.get(i);
+                Source source = referenceDataService.findSource("Google News").orElseThrow();
+
+                // 使用Google News RSS訂閱源，串流解析且取滿20則即停止
+                FetchResult feed = pageFetcher.fetch("https://news.google.com/rss/search?q=android&hl=zh-TW&gl=TW&ceid=TW:zh-Hant", source.getName());
+                List<FeedItem> items = new ArrayList<>();
+                try (InputStream in = feed.openStream()) {
+                    feedParser.parse(in, feed.getCharset(), item -> {
+                        if (item.getTitle() != null && item.getLink() != null) {
+                            items.add(item);
+                        }
+                        return items.size() < 20;
+                    });
+                }
+                List<News> newsList = new ArrayList<>();
 
-                    String title = item.select("title").text();
-                    String link = item.select("link").text();
-                    String pubDate = item.select("pubDate").text();
-                    String description = item.select("description").text();
-                    String sourceName = item.select("source").text();
+                for (FeedItem item : items) {
+                    String title = item.getTitle();
+                    String link = item.getLink();
+                    String description = item.getDescription() == null ? "" : item.getDescription();
+                    String sourceName = item.getSourceName() == null ? "" : item.getSourceName();
 
-                    // 根據標題和描述判斷分類
-                    Category category = determineCategory(title + " " + description);
+                    // 根據標題和描述判斷分類與標籤
+                    Classification classification = newsClassifier.classify(link, title + " " + description);
 
                     News news = new News();
                     news.setTitle(title);
                     news.setSummary(description.length() > 200 ? description.substring(0, 200) + "..." : description);
                     news.setContent("<p>" + description + "</p><p>閱讀更多: <a href='" + link + "' target='_blank'>" + link + "</a></p>");
                     news.setImageUrl("https://via.placeholder.com/600x400?text=Android+News"); // 預設圖片
-                    news.setPublishDate(LocalDateTime.now().minusDays((long) (Math.random() * 3)));
+                    news.setPublishDate(DateUtil.publishDateOrNow(item.getPublishDate()));
                     news.setSourceUrl(link);
                     news.setSource(source);
-                    news.setCategory(category);
-                    news.setTags(extractTags(title + " " + description));
+                    news.setCategory(classification.getCategory());
+                    news.setTags(classification.getTags());
                     news.setAuthor(sourceName.isEmpty() ? "Google News" : sourceName);
 
-                    newsRepository.save(news);
+                    newsList.add(news);
                 }
+
+                newsIngestService.ingest(newsList);
+                // 文章寫入成功後才記錄訂閱源的驗證資訊，失敗時下次啟動會重新讀取
+                pageFetcher.commit(feed);
             }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
-
-    private Category determineCategory(String content) {
-        content = content.toLowerCase();
-
-        if (content.contains("手機") || content.contains("smartphone") || content.contains("pixel") || content.contains("galaxy")) {
-            return categoryRepository.findBySlug("phones").orElseThrow();
-        } else if (content.contains("平板") || content.contains("tablet") || content.contains("ipad")) {
-            return categoryRepository.findBySlug("tablets").orElseThrow();
-        } else if (content.contains("穿戴") || content.contains("watch") || content.contains("wearable")) {
-            return categoryRepository.findBySlug("wearables").orElseThrow();
-        } else if (content.contains("app") || content.contains("應用")) {
-            return categoryRepository.findBySlug("apps").orElseThrow();
-        } else if (content.contains("android 13") || content.contains("android 14") || content.contains("系統") || content.contains("更新")) {
-            return categoryRepository.findBySlug("os").orElseThrow();
-        } else if (content.contains("開發") || content.contains("develop") || content.contains("程式")) {
-            return categoryRepository.findBySlug("development").orElseThrow();
-        } else if (content.contains("google")) {
-            return categoryRepository.findBySlug("google").orElseThrow();
-        } else {
-            return categoryRepository.findBySlug("phones").orElseThrow(); // 預設分類
-        }
-    }
-
-    private HashSet<String> extractTags(String content) {
-        HashSet<String> tags = new HashSet<>();
-        content = content.toLowerCase();
-
-        if (content.contains("android 13")) tags.add("Android 13");
-        if (content.contains("android 14")) tags.add("Android 14");
-        if (content.contains("pixel")) tags.add("Pixel");
-        if (content.contains("samsung") || content.contains("三星")) tags.add("Samsung");
-        if (content.contains("galaxy")) tags.add("Galaxy");
-        if (content.contains("google")) tags.add("Google");
-        if (content.contains("app") || content.contains("應用")) tags.add("App");
-        if (content.contains("更新") || content.contains("update")) tags.add("更新");
-
-        // 確保至少有一個標籤
-        if (tags.isEmpty()) {
-            tags.add("Android");
-        }
-
-        return tags;
-    }
 }
@@ -1,14 +1,38 @@
 package com.androidnews.util;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
 import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
 
 public class DateUtil {
 
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    // RFC 822 / 1123 without the weekday, which is stripped first (feeds often get it wrong); two-digit years
+    // and missing seconds are accepted, zone names are mapped to offsets before parsing
+    private static final DateTimeFormatter RFC_822 = new DateTimeFormatterBuilder()
+            .parseCaseInsensitive()
+            .appendPattern("d MMM ")
+            .optionalStart().appendPattern("yyyy").optionalEnd()
+            .optionalStart().appendValueReduced(ChronoField.YEAR, 2, 2, 1970).optionalEnd()
+            .appendPattern(" H:mm[:ss] xx")
+            .toFormatter(Locale.ENGLISH);
+
+    private static final Map<String, String> RFC_822_ZONES = Map.ofEntries(
+            Map.entry("UT", "+0000"), Map.entry("UTC", "+0000"), Map.entry("GMT", "+0000"), Map.entry("Z", "+0000"),
+            Map.entry("EST", "-0500"), Map.entry("EDT", "-0400"), Map.entry("CST", "-0600"), Map.entry("CDT", "-0500"),
+            Map.entry("MST", "-0700"), Map.entry("MDT", "-0600"), Map.entry("PST", "-0800"), Map.entry("PDT", "-0700"));
+
     public static String formatDateTime(LocalDateTime dateTime) {
         return dateTime.format(FORMATTER);
     }
@@ -17,6 +41,62 @@ public class DateUtil {
         return LocalDateTime.parse(dateTimeStr, FORMATTER);
     }
 
+    // Accepts RSS dates ("Tue, 03 Jun 2008 11:05:30 GMT") and ISO 8601 (Atom, dc:date). Returns the instant in
+    // the server's zone like every other LocalDateTime here, or null when the value cannot be parsed
+    public static LocalDateTime parseFeedDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String text = value.trim();
+        // Dispatch on shape so the common case never goes through a failed parse (and its exception)
+        boolean iso = text.length() >= 10 && text.charAt(4) == '-' && Character.isDigit(text.charAt(0));
+        if (!iso) {
+            return parseRfc822(text);
+        }
+        try {
+            if (text.length() == 10) {
+                return LocalDate.parse(text).atStartOfDay();
+            }
+            TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parseBest(text, ZonedDateTime::from, LocalDateTime::from);
+            if (parsed instanceof ZonedDateTime) {
+                return toLocal((ZonedDateTime) parsed);
+            }
+            return toLocal(((LocalDateTime) parsed).atZone(ZoneOffset.UTC));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // Missing dates fall back to now and future ones are clamped, so a bad feed cannot pin an article to the top
+    public static LocalDateTime publishDateOrNow(LocalDateTime publishDate) {
+        LocalDateTime now = LocalDateTime.now();
+        return publishDate == null || publishDate.isAfter(now) ? now : publishDate;
+    }
+
+    private static LocalDateTime parseRfc822(String text) {
+        String normalized = text.indexOf("  ") >= 0 ? text.replaceAll("\\s+", " ") : text;
+        int comma = normalized.indexOf(',');
+        if (comma >= 0) {
+            normalized = normalized.substring(comma + 1).trim();
+        }
+        int lastSpace = normalized.lastIndexOf(' ');
+        if (lastSpace > 0) {
+            String offset = RFC_822_ZONES.get(normalized.substring(lastSpace + 1).toUpperCase(Locale.ROOT));
+            if (offset != null) {
+                normalized = normalized.substring(0, lastSpace + 1) + offset;
+            }
+        }
+        try {
+            return toLocal(ZonedDateTime.parse(normalized, RFC_822));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static LocalDateTime toLocal(ZonedDateTime dateTime) {
+        return dateTime.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+
     public static LocalDateTime convertDateToLocalDateTime(Date date) {
         return date.toInstant()
                 .atZone(ZoneId.systemDefault())
@@ -0,0 +1,86 @@
+package com.androidnews.util;
+
+import com.androidnews.dto.NewsDTO;
+
+import java.util.*;
+
+public class FieldSelection {
+
+    public static final Set<String> CARD_FIELDS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+            "id", "title", "summary", "imageUrl", "publishDate", "source", "sourceLogoUrl", "category", "categorySlug", "storyId"
+    )));
+
+    public static final Set<String> ALL_FIELDS;
+
+    static {
+        Set<String> all = new LinkedHashSet<>(CARD_FIELDS);
+        all.addAll(Arrays.asList("content", "imageCredit", "sourceUrl", "tags", "author", "authorBio", "authorAvatar"));
+        ALL_FIELDS = Collections.unmodifiableSet(all);
+    }
+
+    private static final FieldSelection CARD = new FieldSelection(CARD_FIELDS);
+
+    private final Set<String> fields;
+
+    private FieldSelection(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    public static FieldSelection card() {
+        return CARD;
+    }
+
+    // A missing or blank fields= parameter means the card fields; the id is always included
+    public static FieldSelection parse(String fields) {
+        if (fields == null || fields.trim().isEmpty()) {
+            return CARD;
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!ALL_FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            selected.add(name);
+        }
+        return new FieldSelection(selected);
+    }
+
+    // Tags are bulk-loaded onto cards separately, so they alone never require the entity
+    public boolean needsEntity() {
+        for (String field : fields) {
+            if (!CARD_FIELDS.contains(field) && !field.equals("tags")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean needsTags() {
+        return fields.contains("tags");
+    }
+
+    public NewsDTO apply(NewsDTO dto) {
+        if (!fields.contains("title")) dto.setTitle(null);
+        if (!fields.contains("summary")) dto.setSummary(null);
+        if (!fields.contains("imageUrl")) dto.setImageUrl(null);
+        if (!fields.contains("publishDate")) dto.setPublishDate(null);
+        if (!fields.contains("source")) dto.setSource(null);
+        if (!fields.contains("sourceLogoUrl")) dto.setSourceLogoUrl(null);
+        if (!fields.contains("category")) dto.setCategory(null);
+        if (!fields.contains("categorySlug")) dto.setCategorySlug(null);
+        if (!fields.contains("storyId")) dto.setStoryId(null);
+        if (!fields.contains("content")) dto.setContent(null);
+        if (!fields.contains("imageCredit")) dto.setImageCredit(null);
+        if (!fields.contains("sourceUrl")) dto.setSourceUrl(null);
+        if (!fields.contains("tags")) dto.setTags(null);
+        if (!fields.contains("author")) dto.setAuthor(null);
+        if (!fields.contains("authorBio")) dto.setAuthorBio(null);
+        if (!fields.contains("authorAvatar")) dto.setAuthorAvatar(null);
+        return dto;
+    }
+}
@@ -1,13 +1,35 @@
 package com.androidnews.util;
 
+import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
 import org.jsoup.select.Elements;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
 @Component
 public class HtmlParser {
 
+    private static final int MIN_PARAGRAPH_LENGTH = 25;
+    private static final double MIN_SIBLING_SCORE = 10;
+    private static final double SIBLING_SCORE_RATIO = 0.2;
+    private static final double CLASS_WEIGHT = 25;
+    private static final Pattern POSITIVE_CLASS = Pattern.compile(
+            "article|body|content|entry|hentry|main|page|post|text|blog|story", Pattern.CASE_INSENSITIVE);
+    private static final Pattern NEGATIVE_CLASS = Pattern.compile(
+            "comment|disqus|discuss|contact|foot|masthead|media|meta|outbrain|promo|related|scroll|share|shoutbox|sidebar|"
+                    + "skyscraper|sponsor|shopping|tags|tool|widget|nav|menu|banner|\\bads?\\b|breadcrumb|subscribe",
+            Pattern.CASE_INSENSITIVE);
+
     public String extractContent(Document doc) {
         // Remove unwanted elements
         doc.select("script, style, iframe, .advertisement, .ads, .related-posts, .comments").remove();
@@ -25,6 +47,13 @@ public class HtmlParser {
         return doc.body().html();
     }
 
+    public String extractText(String html) {
+        if (html == null || html.isEmpty()) {
+            return "";
+        }
+        return Jsoup.parse(html).text();
+    }
+
     public String extractMainImage(Document doc) {
         // Try to find the main image using common meta tags
         String ogImage = doc.select("meta[property=og:image]").attr("content");
@@ -52,26 +81,186 @@ public class HtmlParser {
         return "";
     }
 
+    // Readability-style scoring in one depth-first traversal. Text and link lengths are summed bottom-up as each
+    // element closes; every paragraph credits its container in full and the container's parent by half, so the
+    // winner is the tightest block holding the article text rather than the outermost div. Linear in DOM size
     private Element findMainContent(Document doc) {
-        // Try common article content selectors
-        Element content = doc.selectFirst("article .content, .post-content, .entry-content, .article-content, main");
-        if (content != null) {
-            return content;
+        Element body = doc.body();
+        if (body == null) {
+            return null;
+        }
+        ContentScorer scorer = new ContentScorer();
+        NodeTraversor.traverse(scorer, body);
+        if (scorer.best == null) {
+            return null;
+        }
+        return withQualifyingSiblings(scorer.best, scorer.bestScore, scorer.directScores);
+    }
+
+    // Articles split across sibling blocks (e.g. text interrupted by an inline ad container) are joined back up.
+    // Only paragraphs sitting directly in a sibling count, so comment threads (one small box per reply) stay out
+    private Element withQualifyingSiblings(Element best, double bestScore, Map<Element, Double> directScores) {
+        Element parent = best.parent();
+        if (parent == null) {
+            return best;
+        }
+        double threshold = Math.max(MIN_SIBLING_SCORE, bestScore * SIBLING_SCORE_RATIO);
+        List<Element> parts = new ArrayList<>();
+        for (Element sibling : parent.children()) {
+            Double score = directScores.get(sibling);
+            if (sibling == best || score != null && score >= threshold) {
+                parts.add(sibling);
+            }
+        }
+        if (parts.size() == 1) {
+            return best;
         }
+        Element merged = new Element("div");
+        for (Element part : parts) {
+            merged.appendChild(part);
+        }
+        return merged;
+    }
 
-        // Try to find the largest div with paragraphs
-        Elements divs = doc.select("div");
-        Element largestDiv = null;
-        int maxParagraphs = 0;
+    private static class Frame {
+        final Element element;
+        final boolean block;
+        int textLength;
+        int linkTextLength;
+        int ownTextLength;
+        int ownCommas;
+        double contentScore;
+        double directScore;
 
-        for (Element div : divs) {
-            int paragraphCount = div.select("p").size();
-            if (paragraphCount > maxParagraphs) {
-                maxParagraphs = paragraphCount;
-                largestDiv = div;
+        Frame(Element element) {
+            this.element = element;
+            this.block = element.isBlock();
+        }
+    }
+
+    private static class ContentScorer implements NodeVisitor {
+        private final List<Frame> stack = new ArrayList<>();
+        private final Map<Element, Double> directScores = new IdentityHashMap<>();
+        private int linkDepth;
+        private Element best;
+        private double bestScore;
+
+        @Override
+        public void head(Node node, int depth) {
+            if (node instanceof Element) {
+                Element element = (Element) node;
+                stack.add(new Frame(element));
+                if ("a".equals(element.normalName())) {
+                    linkDepth++;
+                }
+            } else if (node instanceof TextNode && !stack.isEmpty()) {
+                addText(((TextNode) node).getWholeText());
             }
         }
 
-        return largestDiv;
+        @Override
+        public void tail(Node node, int depth) {
+            if (!(node instanceof Element)) {
+                return;
+            }
+            Frame frame = stack.remove(stack.size() - 1);
+            String tag = frame.element.normalName();
+            if ("a".equals(tag)) {
+                linkDepth--;
+            }
+            Frame parent = frame(1);
+
+            // A <p> scores for its container; a block with enough loose text (e.g. <br>-separated) is its own
+            if (frame.block && frame.ownTextLength >= MIN_PARAGRAPH_LENGTH) {
+                double paragraphScore = 1 + frame.ownCommas + Math.min(frame.ownTextLength / 100, 3);
+                boolean paragraph = "p".equals(tag) || "pre".equals(tag);
+                Frame container = paragraph ? parent : frame;
+                Frame outer = paragraph ? frame(2) : parent;
+                if (container != null) {
+                    container.contentScore += paragraphScore;
+                    container.directScore += paragraphScore;
+                }
+                if (outer != null) {
+                    outer.contentScore += paragraphScore / 2;
+                }
+            }
+
+            if (frame.contentScore > 0) {
+                double linkDensity = frame.textLength == 0 ? 0 : (double) frame.linkTextLength / frame.textLength;
+                double score = (frame.contentScore + classWeight(frame.element)) * (1 - linkDensity);
+                if (frame.directScore > 0) {
+                    directScores.put(frame.element, frame.directScore * (1 - linkDensity));
+                }
+                if (best == null || score > bestScore) {
+                    best = frame.element;
+                    bestScore = score;
+                }
+            }
+
+            if (parent != null) {
+                parent.textLength += frame.textLength;
+                parent.linkTextLength += frame.linkTextLength;
+            }
+        }
+
+        // Counts characters with whitespace runs collapsed, crediting inline text to the enclosing block
+        private void addText(String text) {
+            int length = 0;
+            int commas = 0;
+            boolean pendingSpace = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c) || c == '\u00a0') {
+                    pendingSpace = length > 0;
+                    continue;
+                }
+                if (pendingSpace) {
+                    length++;
+                    pendingSpace = false;
+                }
+                length++;
+                if (c == ',' || c == '\uff0c' || c == '\u3001') {
+                    commas++;
+                }
+            }
+            if (length == 0) {
+                return;
+            }
+            Frame top = stack.get(stack.size() - 1);
+            top.textLength += length;
+            if (linkDepth > 0) {
+                top.linkTextLength += length;
+                return;
+            }
+            for (int i = stack.size() - 1; i >= 0; i--) {
+                Frame frame = stack.get(i);
+                if (frame.block || i == 0) {
+                    frame.ownTextLength += length;
+                    frame.ownCommas += commas;
+                    return;
+                }
+            }
+        }
+
+        private Frame frame(int fromTop) {
+            int index = stack.size() - fromTop;
+            return index >= 0 ? stack.get(index) : null;
+        }
+
+        private static double classWeight(Element element) {
+            double weight = 0;
+            for (String name : new String[]{element.className(), element.id()}) {
+                if (name.isEmpty()) {
+                    continue;
+                }
+                if (NEGATIVE_CLASS.matcher(name).find()) {
+                    weight -= CLASS_WEIGHT;
+                }
+                if (POSITIVE_CLASS.matcher(name).find()) {
+                    weight += CLASS_WEIGHT;
+                }
+            }
+            return weight;
+        }
     }
 }
@@ -0,0 +1,53 @@
+package com.androidnews.util;
+
+import com.androidnews.service.NewsBodyMigrationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// One-off body migration on a single node, in three runs:
+// java -jar app.jar --migrate.news-bodies=copy|verify|drop --spring.main.web-application-type=none
+// copy can be repeated until every replica runs this version; drop verifies again and refuses on any mismatch
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "migrate.news-bodies")
+@RequiredArgsConstructor
+@Slf4j
+public class NewsBodyMigrationRunner implements CommandLineRunner {
+
+    private final NewsBodyMigrationService newsBodyMigrationService;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${migrate.news-bodies}")
+    private String step;
+
+    @Override
+    public void run(String... args) {
+        int exitCode = 0;
+        switch (step) {
+            case "copy":
+                newsBodyMigrationService.copyLegacyContent();
+                break;
+            case "verify":
+                exitCode = newsBodyMigrationService.verifyLegacyContent() == 0 ? 0 : 1;
+                break;
+            case "drop":
+                newsBodyMigrationService.dropLegacyContent();
+                break;
+            default:
+                log.error("Unknown body migration step '{}', expected copy, verify or drop", step);
+                exitCode = 2;
+        }
+
+        // Exit before DataInitializer runs, so a migration never starts a crawl
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
@@ -0,0 +1,44 @@
+package com.androidnews.util;
+
+import com.androidnews.service.NewsExportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// CLI export: java -jar app.jar --export.path=news.ndjson.gz --spring.main.web-application-type=none
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "export.path")
+@RequiredArgsConstructor
+@Slf4j
+public class NewsExportRunner implements CommandLineRunner {
+
+    private final NewsExportService newsExportService;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${export.path}")
+    private String path;
+
+    @Override
+    public void run(String... args) throws Exception {
+        long exported;
+        try (OutputStream out = Files.newOutputStream(Path.of(path))) {
+            exported = newsExportService.export(out);
+        }
+        log.info("Exported {} articles to {}", exported, path);
+
+        // Exit before DataInitializer runs, so an export never starts a crawl
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
@@ -0,0 +1,229 @@
+package com.androidnews.util;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+public class UrlCanonicalizer {
+
+    private static final Set<String> TRACKING_PARAMS = new HashSet<>(Arrays.asList(
+            "fbclid", "gclid", "dclid", "msclkid", "yclid", "igshid", "mc_cid", "mc_eid",
+            "_ga", "_gl", "ref_src", "cmpid", "ved", "usg"
+    ));
+
+    // Names too generic to drop everywhere; elsewhere ref or oc can select the page itself
+    private static final Map<String, Set<String>> HOST_TRACKING_PARAMS = Map.of(
+            "google.com", Set.of("oc", "ei"),
+            "twitter.com", Set.of("ref"),
+            "x.com", Set.of("ref"),
+            "producthunt.com", Set.of("ref")
+    );
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    public static String canonicalize(String url) {
+        if (url == null) {
+            return null;
+        }
+        String trimmed = url.trim();
+        if (trimmed.isEmpty()) {
+            return trimmed;
+        }
+
+        URI uri;
+        try {
+            uri = new URI(trimmed);
+        } catch (URISyntaxException e) {
+            return trimmed;
+        }
+        if (uri.getScheme() == null || uri.getRawAuthority() == null) {
+            return trimmed;
+        }
+
+        String unwrapped = unwrapRedirect(uri);
+        if (unwrapped != null && !unwrapped.equals(trimmed)) {
+            return canonicalize(unwrapped);
+        }
+
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        if (scheme.equals("http")) {
+            scheme = "https";
+        }
+        String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+        if (host.endsWith(".")) {
+            host = host.substring(0, host.length() - 1);
+        }
+        int port = uri.getPort();
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+
+        StringBuilder canonical = new StringBuilder(trimmed.length());
+        canonical.append(scheme).append("://").append(host);
+        if (port != -1 && port != 80 && port != 443) {
+            canonical.append(':').append(port);
+        }
+        canonical.append(path);
+
+        String query = canonicalQuery(uri.getRawQuery(), host);
+        if (!query.isEmpty()) {
+            canonical.append('?').append(query);
+        }
+        // Fragments never reach the server, so they are dropped entirely
+        return canonical.toString();
+    }
+
+    public static String hash(String url) {
+        if (url == null) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(canonicalize(url).getBytes(StandardCharsets.UTF_8));
+            char[] hex = new char[bytes.length * 2];
+            for (int i = 0; i < bytes.length; i++) {
+                hex[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+                hex[i * 2 + 1] = HEX[bytes[i] & 0xf];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String unwrapRedirect(URI uri) {
+        String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+        String path = uri.getPath() == null ? "" : uri.getPath();
+
+        // google.com/url?q=... and news.google.com/url?url=... redirect wrappers
+        if ((host.equals("google.com") || host.endsWith(".google.com")) && path.equals("/url")) {
+            Map<String, String> params = queryParams(uri.getRawQuery());
+            String target = params.containsKey("url") ? params.get("url") : params.get("q");
+            if (target != null && (target.startsWith("http://") || target.startsWith("https://"))) {
+                return target;
+            }
+        }
+
+        // Older Google News article ids are base64 protobufs that embed the target URL in clear text
+        if (host.equals("news.google.com") && path.contains("/articles/")) {
+            String id = path.substring(path.lastIndexOf('/') + 1);
+            try {
+                return embeddedUrl(Base64.getUrlDecoder().decode(padBase64(id)));
+            } catch (IllegalArgumentException e) {
+                // Not a decodable id; keep the Google News URL as the key
+            }
+        }
+        return null;
+    }
+
+    // Walks the top-level protobuf fields and returns the first length-delimited one holding a URL, so the
+    // bytes after it are never read as part of the address
+    private static String embeddedUrl(byte[] message) {
+        int pos = 0;
+        while (pos < message.length) {
+            long[] tag = readVarint(message, pos);
+            if (tag == null) {
+                return null;
+            }
+            pos = (int) tag[1];
+            switch ((int) (tag[0] & 7)) {
+                case 0:
+                    long[] value = readVarint(message, pos);
+                    if (value == null) {
+                        return null;
+                    }
+                    pos = (int) value[1];
+                    break;
+                case 1:
+                    pos += 8;
+                    break;
+                case 2:
+                    long[] length = readVarint(message, pos);
+                    if (length == null || length[0] < 0 || length[0] > message.length - length[1]) {
+                        return null;
+                    }
+                    String field = new String(message, (int) length[1], (int) length[0], StandardCharsets.ISO_8859_1);
+                    if (field.startsWith("http://") || field.startsWith("https://")) {
+                        return field;
+                    }
+                    pos = (int) (length[1] + length[0]);
+                    break;
+                case 5:
+                    pos += 4;
+                    break;
+                default:
+                    return null;
+            }
+        }
+        return null;
+    }
+
+    // Value and the position just past it, or null when the varint runs off the end
+    private static long[] readVarint(byte[] message, int pos) {
+        long value = 0;
+        for (int shift = 0; shift < 64 && pos < message.length; shift += 7) {
+            byte b = message[pos++];
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return new long[]{value, pos};
+            }
+        }
+        return null;
+    }
+
+    private static String canonicalQuery(String rawQuery, String host) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+        List<String> kept = new ArrayList<>();
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String name = (eq >= 0 ? pair.substring(0, eq) : pair).toLowerCase(Locale.ROOT);
+            if (name.startsWith("utm_") || TRACKING_PARAMS.contains(name) || isHostTrackingParam(host, name)) {
+                continue;
+            }
+            kept.add(pair);
+        }
+        Collections.sort(kept);
+        return String.join("&", kept);
+    }
+
+    private static boolean isHostTrackingParam(String host, String name) {
+        for (Map.Entry<String, Set<String>> entry : HOST_TRACKING_PARAMS.entrySet()) {
+            String domain = entry.getKey();
+            if ((host.equals(domain) || host.endsWith("." + domain)) && entry.getValue().contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, String> queryParams(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                try {
+                    params.putIfAbsent(pair.substring(0, eq),
+                            URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                } catch (IllegalArgumentException e) {
+                    // Skip malformed escapes
+                }
+            }
+        }
+        return params;
+    }
+
+    private static String padBase64(String value) {
+        int remainder = value.length() % 4;
+        return remainder == 0 ? value : value + "====".substring(remainder);
+    }
+}
@@ -0,0 +1,35 @@
+package com.androidnews;
+
+import com.androidnews.model.Category;
+import com.androidnews.model.News;
+import com.androidnews.model.Source;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+
+// Article fixtures for tests; the seeded sources and categories come from DataInitializer
+public final class TestNews {
+
+    private TestNews() {
+    }
+
+    public static News article(Source source, Category category, String title, String sourceUrl, String content,
+                               LocalDateTime publishDate, String... tags) {
+        News news = new News();
+        news.setTitle(title);
+        news.setSummary("Summary of " + title);
+        news.setContent(content);
+        news.setPublishDate(publishDate);
+        news.setSourceUrl(sourceUrl);
+        news.setSource(source);
+        news.setCategory(category);
+        news.setTags(new HashSet<>(Arrays.asList(tags)));
+        news.setAuthor(source.getName());
+        return news;
+    }
+
+    public static News article(Source source, Category category, String title, String sourceUrl) {
+        return article(source, category, title, sourceUrl, "<p>" + title + "</p>", LocalDateTime.now(), "Android");
+    }
+}
@@ -0,0 +1,158 @@
+package com.androidnews.config;
+
+import com.androidnews.TestNews;
+import com.androidnews.model.News;
+import com.androidnews.repository.CategoryRepository;
+import com.androidnews.repository.NewsRepository;
+import com.androidnews.repository.SourceRepository;
+import com.androidnews.service.NewsIngestService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NewsIngestService newsIngestService;
+
+    @Autowired
+    private NewsRepository newsRepository;
+
+    @Autowired
+    private SourceRepository sourceRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void publicEndpointsNeedNoCredentials() throws Exception {
+        mockMvc.perform(get("/categories")).andExpect(status().isOk());
+    }
+
+    @Test
+    void searchIndexNeedsTheAdmin() throws Exception {
+        assertAdminOnly(() -> get("/admin/search-index"));
+        assertAdminOnly(() -> post("/admin/search-index/rebuild"));
+        mockMvc.perform(get("/admin/search-index").with(httpBasic("admin", "wrong")))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/admin/search-index").with(httpBasic("admin", "test-admin"))).andExpect(status().isOk());
+    }
+
+    @Test
+    void onlyTheAdminCanDeleteArticles() throws Exception {
+        News news = newsIngestService.ingest(List.of(TestNews.article(
+                sourceRepository.findByName("Android Police").orElseThrow(),
+                categoryRepository.findBySlug("phones").orElseThrow(),
+                "Delete me", "https://security.example.com/delete"))).get(0);
+
+        mockMvc.perform(delete("/admin/news/{id}", news.getId())).andExpect(status().isUnauthorized());
+        mockMvc.perform(delete("/admin/news/{id}", news.getId()).with(user("reader").roles("USER")))
+                .andExpect(status().isForbidden());
+        assertThat(newsRepository.existsById(news.getId())).isTrue();
+
+        mockMvc.perform(delete("/admin/news/{id}", news.getId()).with(httpBasic("admin", "test-admin")))
+                .andExpect(status().isNoContent());
+        assertThat(newsRepository.existsById(news.getId())).isFalse();
+    }
+
+    @Test
+    void crawlReportNeedsTheAdmin() throws Exception {
+        assertAdminOnly(() -> get("/crawler/last-run"));
+        mockMvc.perform(get("/crawler/last-run").with(httpBasic("admin", "test-admin")))
+                .andExpect(status().is2xxSuccessful());
+    }
+
+    @Test
+    void fetchStatsNeedTheAdmin() throws Exception {
+        assertAdminOnly(() -> get("/crawler/fetch-stats"));
+        mockMvc.perform(get("/crawler/fetch-stats").with(httpBasic("admin", "test-admin"))).andExpect(status().isOk());
+    }
+
+    @Test
+    void classifierReloadNeedsTheAdmin() throws Exception {
+        assertAdminOnly(() -> post("/admin/classifier/reload"));
+        mockMvc.perform(post("/admin/classifier/reload").with(httpBasic("admin", "wrong")))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/admin/classifier/reload").with(httpBasic("admin", "test-admin")))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void counterRebuildNeedsTheAdmin() throws Exception {
+        assertAdminOnly(() -> post("/admin/counters/rebuild"));
+        mockMvc.perform(post("/admin/counters/rebuild").with(httpBasic("admin", "test-admin"))).andExpect(status().isOk());
+    }
+
+    @Test
+    void feedVersionStatsNeedTheAdmin() throws Exception {
+        assertAdminOnly(() -> get("/admin/feed-versions"));
+        mockMvc.perform(get("/admin/feed-versions").with(httpBasic("admin", "test-admin"))).andExpect(status().isOk());
+    }
+
+    @Test
+    void feedCacheStatsNeedTheAdmin() throws Exception {
+        assertAdminOnly(() -> get("/admin/feed-cache"));
+        mockMvc.perform(get("/admin/feed-cache").with(httpBasic("admin", "test-admin"))).andExpect(status().isOk());
+    }
+
+    @Test
+    void newsStreamStatsNeedTheAdmin() throws Exception {
+        assertAdminOnly(() -> get("/admin/news-stream"));
+        mockMvc.perform(get("/admin/news-stream").with(httpBasic("admin", "test-admin"))).andExpect(status().isOk());
+    }
+
+    @Test
+    void crawlScheduleNeedsTheAdmin() throws Exception {
+        assertAdminOnly(() -> get("/crawler/schedule"));
+        assertAdminOnly(() -> put("/crawler/schedule/Google News").contentType(MediaType.APPLICATION_JSON).content("{}"));
+        mockMvc.perform(get("/crawler/schedule").with(httpBasic("admin", "test-admin"))).andExpect(status().isOk());
+    }
+
+    @Test
+    void ingestQueueStatsNeedTheAdmin() throws Exception {
+        assertAdminOnly(() -> get("/admin/ingest-queue"));
+        mockMvc.perform(get("/admin/ingest-queue").with(httpBasic("admin", "test-admin"))).andExpect(status().isOk());
+    }
+
+    @Test
+    void crawlLeasesNeedTheAdmin() throws Exception {
+        assertAdminOnly(() -> get("/crawler/leases"));
+        mockMvc.perform(get("/crawler/leases").with(httpBasic("admin", "test-admin"))).andExpect(status().isOk());
+    }
+
+    @Test
+    void storyIndexNeedsTheAdmin() throws Exception {
+        assertAdminOnly(() -> get("/admin/story-index"));
+        assertAdminOnly(() -> post("/admin/story-index/rebuild"));
+        mockMvc.perform(get("/admin/story-index").with(httpBasic("admin", "test-admin"))).andExpect(status().isOk());
+    }
+
+    // Anonymous callers are asked for credentials; signed-in users without the role are refused
+    private void assertAdminOnly(Supplier<MockHttpServletRequestBuilder> request) throws Exception {
+        mockMvc.perform(request.get()).andExpect(status().isUnauthorized());
+        mockMvc.perform(request.get().with(user("reader").roles("USER"))).andExpect(status().isForbidden());
+    }
+}
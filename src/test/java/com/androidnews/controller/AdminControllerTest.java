@@ -0,0 +1,127 @@
+package com.androidnews.controller;
+
+import com.androidnews.TestNews;
+import com.androidnews.repository.CategoryRepository;
+import com.androidnews.repository.SourceRepository;
+import com.androidnews.service.NewsExportService;
+import com.androidnews.service.NewsIngestService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AdminControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NewsExportService newsExportService;
+
+    @Autowired
+    private NewsIngestService newsIngestService;
+
+    @Autowired
+    private SourceRepository sourceRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void exportNeedsTheAdmin() throws Exception {
+        mockMvc.perform(get("/admin/export")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/admin/export").with(user("reader").roles("USER"))).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void exportWritesGzippedNdjson() throws Exception {
+        newsIngestService.ingest(List.of(TestNews.article(sourceRepository.findByName("Android Police").orElseThrow(),
+                categoryRepository.findBySlug("phones").orElseThrow(), "Exported", "https://export.example.com/1")));
+
+        MvcResult result = mockMvc.perform(get("/admin/export").with(httpBasic("admin", "test-admin")))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertThat(result.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION)).contains("news.ndjson.gz");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            String ndjson = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertThat(ndjson).contains("\"title\":\"Exported\"");
+        }
+    }
+
+    // The running export is held on its first write, as a slow download would hold it
+    @Test
+    void exportBeyondTheLimitIsRejected() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Long> running = CompletableFuture.supplyAsync(() -> {
+            try {
+                return newsExportService.export(new BlockingOutputStream(writing, release));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        try {
+            assertThat(writing.await(10, TimeUnit.SECONDS)).isTrue();
+
+            MvcResult rejected = mockMvc.perform(get("/admin/export").with(httpBasic("admin", "test-admin")))
+                    .andExpect(status().isTooManyRequests())
+                    .andReturn();
+            assertThat(rejected.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION)).isNull();
+        } finally {
+            release.countDown();
+        }
+        running.get(10, TimeUnit.SECONDS);
+
+        mockMvc.perform(get("/admin/export").with(httpBasic("admin", "test-admin"))).andExpect(status().isOk());
+    }
+
+    private static class BlockingOutputStream extends OutputStream {
+        private final CountDownLatch writing;
+        private final CountDownLatch release;
+
+        BlockingOutputStream(CountDownLatch writing, CountDownLatch release) {
+            this.writing = writing;
+            this.release = release;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.androidnews.controller;
+
+import com.androidnews.TestNews;
+import com.androidnews.model.Category;
+import com.androidnews.model.News;
+import com.androidnews.model.Source;
+import com.androidnews.repository.CategoryRepository;
+import com.androidnews.repository.SourceRepository;
+import com.androidnews.service.NewsIngestService;
+import com.androidnews.util.FieldSelection;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Prepared statements per request must not grow with the page size. Requests go through the whole MVC stack, so
+// lazy loads while the response is written count too; the feed cache is off so every request reaches the database,
+// and feed versions are warmed by the first request and then served from memory
+@SpringBootTest(properties = {"feed-cache.enabled=false", "feed-version.cache-ms=600000"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class NewsControllerQueryCountTest {
+
+    private static final String ALL_FIELDS = String.join(",", FieldSelection.ALL_FIELDS);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NewsIngestService newsIngestService;
+
+    @Autowired
+    private SourceRepository sourceRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long detailId;
+
+    @BeforeAll
+    void seed() {
+        List<Source> sources = sourceRepository.findAll();
+        List<Category> categories = List.of(categoryRepository.findBySlug("phones").orElseThrow(),
+                categoryRepository.findBySlug("apps").orElseThrow());
+        List<News> articles = new ArrayList<>();
+        // Unrelated bodies keep every article its own story, so each list below has more than one full page
+        for (int i = 0; i < 300; i++) {
+            articles.add(TestNews.article(sources.get(i % sources.size()), categories.get(i % categories.size()),
+                    "Query count article " + i, "https://query-count.example.com/" + i, body(i),
+                    LocalDateTime.now().minusMinutes(i), "Android", "Tag" + (i % 2)));
+        }
+        detailId = newsIngestService.ingest(articles).get(0).getId();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    // Cards, cards with tags, every field; the category list also looks up its category
+    @ParameterizedTest
+    @ValueSource(ints = {10, 50, 100})
+    void pagedListsUseFixedStatementCounts(int size) throws Exception {
+        assertCounts("/news?size=" + size, 2, 3, 4);
+        assertCounts("/news/category/phones?size=" + size, 3, 4, 5);
+        assertCounts("/news/tag/Tag1?size=" + size, 2, 3, 4);
+        // Hits come from the in-memory index, so there is no count query
+        assertCounts("/news/search?query=query+count&size=" + size, 1, 2, 3);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 50, 100})
+    void keysetFeedsUseFixedStatementCounts(int size) throws Exception {
+        assertThat(statements("/news/feed?size=" + size)).isEqualTo(1);
+        assertThat(statements("/news/feed?size=" + size + "&fields=" + ALL_FIELDS)).isEqualTo(3);
+        assertThat(statements("/news/category/phones/feed?size=" + size)).isEqualTo(2);
+        assertThat(statements("/news/category/phones/feed?size=" + size + "&fields=" + ALL_FIELDS)).isEqualTo(4);
+        assertThat(statements("/news/tag/Tag1/feed?size=" + size)).isEqualTo(1);
+        assertThat(statements("/news/tag/Tag1/feed?size=" + size + "&fields=" + ALL_FIELDS)).isEqualTo(3);
+        assertThat(statements("/news/changes?limit=" + size)).isEqualTo(3);
+        assertThat(statements("/news/changes?limit=" + size + "&fields=" + ALL_FIELDS)).isEqualTo(5);
+    }
+
+    // The detail is written from its pre-rendered bytes and popular tags from their counters
+    @Test
+    void detailAndTagsUseFixedStatementCounts() throws Exception {
+        assertThat(statements("/news/" + detailId)).isEqualTo(2);
+        assertThat(statements("/news/tags")).isEqualTo(1);
+    }
+
+    private void assertCounts(String page, long cards, long withTags, long allFields) throws Exception {
+        assertThat(statements(page)).as(page).isEqualTo(cards);
+        assertThat(statements(page + "&fields=title,tags")).as(page).isEqualTo(withTags);
+        assertThat(statements(page + "&fields=" + ALL_FIELDS)).as(page).isEqualTo(allFields);
+    }
+
+    // The first request warms the feed version; the second is the one counted
+    private long statements(String uri) throws Exception {
+        mockMvc.perform(get(uri)).andExpect(status().isOk());
+        statistics.clear();
+        mockMvc.perform(get(uri)).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static String body(int seed) {
+        Random random = new Random(seed);
+        StringBuilder body = new StringBuilder("<p>");
+        for (int i = 0; i < 40; i++) {
+            body.append(" word").append(random.nextInt(100_000));
+        }
+        return body.append("</p>").toString();
+    }
+}
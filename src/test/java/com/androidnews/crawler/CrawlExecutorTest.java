@@ -0,0 +1,57 @@
+package com.androidnews.crawler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CrawlExecutorTest {
+
+    private final CrawlExecutor executor = new CrawlExecutor(true, 2, 4, 1);
+
+    @AfterEach
+    void shutDown() {
+        executor.destroy();
+    }
+
+    @Test
+    void saturatedHostDoesNotHoldUpTheOthers() throws Exception {
+        CountDownLatch slowHostReleased = new CountDownLatch(1);
+        CountDownLatch otherHostFetched = new CountDownLatch(1);
+        AtomicInteger slowRunning = new AtomicInteger();
+        AtomicInteger slowPeak = new AtomicInteger();
+        List<String> urls = List.of("https://slow.example.com/1", "https://slow.example.com/2",
+                "https://slow.example.com/3", "https://fast.example.com/1");
+
+        CompletableFuture<CrawlExecutor.Fetched<String>> crawl = CompletableFuture.supplyAsync(() ->
+                executor.fetchAll(urls, Function.identity(), url -> {
+                    if (url.startsWith("https://fast.")) {
+                        otherHostFetched.countDown();
+                        return url;
+                    }
+                    slowPeak.accumulateAndGet(slowRunning.incrementAndGet(), Math::max);
+                    try {
+                        slowHostReleased.await();
+                    } finally {
+                        slowRunning.decrementAndGet();
+                    }
+                    return url;
+                }));
+
+        // The slow host has used its single permit, yet the fast host's article is fetched meanwhile
+        assertThat(otherHostFetched.await(5, TimeUnit.SECONDS)).isTrue();
+        slowHostReleased.countDown();
+
+        CrawlExecutor.Fetched<String> fetched = crawl.get(5, TimeUnit.SECONDS);
+        assertThat(fetched.getResults()).containsExactlyElementsOf(urls);
+        assertThat(fetched.getFailures()).isZero();
+        assertThat(slowPeak.get()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,106 @@
+package com.androidnews.crawler;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Streaming StAX parse against the Jsoup XML DOM with one select() per field that it replaced, on Google
+// News-shaped RSS. Run with: mvn test -Pbenchmark -Dtest=FeedParserBenchmarkTest
+@Tag("benchmark")
+class FeedParserBenchmarkTest {
+
+    private final FeedParser feedParser = new FeedParser();
+
+    @Test
+    void staxOutrunsJsoupDom() throws IOException {
+        System.out.printf("%8s %8s %10s %10s %14s%n", "items", "KB", "jsoup ms", "stax ms", "stax first 20");
+        for (int items : new int[]{100, 1_000, 10_000}) {
+            byte[] body = rss(items).getBytes(StandardCharsets.UTF_8);
+            int reps = items == 10_000 ? 10 : items == 1_000 ? 50 : 300;
+            assertThat(parseWithJsoup(body)).isEqualTo(items);
+            assertThat(parseWithStax(body, Integer.MAX_VALUE)).isEqualTo(items);
+
+            // Warm both paths before timing
+            for (int i = 0; i < reps; i++) {
+                parseWithJsoup(body);
+                parseWithStax(body, Integer.MAX_VALUE);
+            }
+            long started = System.nanoTime();
+            for (int i = 0; i < reps; i++) {
+                parseWithJsoup(body);
+            }
+            double jsoupMillis = (System.nanoTime() - started) / 1e6 / reps;
+            started = System.nanoTime();
+            for (int i = 0; i < reps; i++) {
+                parseWithStax(body, Integer.MAX_VALUE);
+            }
+            double staxMillis = (System.nanoTime() - started) / 1e6 / reps;
+            started = System.nanoTime();
+            for (int i = 0; i < reps; i++) {
+                parseWithStax(body, 20);
+            }
+            double firstTwentyMillis = (System.nanoTime() - started) / 1e6 / reps;
+
+            System.out.printf("%8d %8d %10.2f %10.2f %14.3f%n", items, body.length / 1024, jsoupMillis, staxMillis,
+                    firstTwentyMillis);
+            assertThat(firstTwentyMillis).isLessThan(staxMillis);
+            if (items == 10_000) {
+                assertThat(staxMillis).isLessThan(jsoupMillis);
+            }
+        }
+    }
+
+    private int parseWithStax(byte[] body, int limit) throws IOException {
+        int[] seen = {0};
+        feedParser.parse(new ByteArrayInputStream(body), null, item -> ++seen[0] < limit);
+        return seen[0];
+    }
+
+    // The crawler before StAX: the whole document as a DOM, then one select() per field of every item
+    private static int parseWithJsoup(byte[] body) throws IOException {
+        Document doc = Jsoup.parse(new ByteArrayInputStream(body), null, "", Parser.xmlParser());
+        int parsed = 0;
+        for (Element item : doc.select("item")) {
+            String title = item.select("title").text();
+            String link = item.select("link").text();
+            item.select("pubDate").text();
+            item.select("description").text();
+            item.select("source").text();
+            if (!title.isEmpty() && !link.isEmpty()) {
+                parsed++;
+            }
+        }
+        return parsed;
+    }
+
+    private static String rss(int items) {
+        StringBuilder rss = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<rss version=\"2.0\" xmlns:media=\"http://search.yahoo.com/mrss/\"><channel>"
+                + "<generator>NFE/5.0</generator><title>\"android\" - Google News</title>"
+                + "<link>https://news.google.com/search?q=android</link><language>en-US</language>"
+                + "<lastBuildDate>Sat, 18 May 2024 10:00:00 GMT</lastBuildDate><description>Google News</description>\n");
+        for (int i = 0; i < items; i++) {
+            rss.append("<item><title>Android 15 beta ").append(i)
+                    .append(" brings new privacy features to Pixel phones - The Verge</title>")
+                    .append("<link>https://news.google.com/rss/articles/CBMiSGh0dHBzOi8vd3d3LnRoZXZlcmdlLmNvbS8yMDI0LzUvMTgv")
+                    .append(i).append("?oc=5</link>")
+                    .append("<guid isPermaLink=\"false\">CBMiSGh0dHBzOi8vd3d3LnRoZXZlcmdl").append(i).append("</guid>")
+                    .append("<pubDate>Sat, ").append(String.format("%02d", 1 + i % 28)).append(" May 2024 0")
+                    .append(i % 10).append(":15:00 GMT</pubDate>")
+                    .append("<description>&lt;ol&gt;&lt;li&gt;&lt;a href=\"https://news.google.com/rss/articles/CBMi")
+                    .append(i).append("?oc=5\" target=\"_blank\"&gt;Android 15 beta brings new privacy features&lt;/a&gt;")
+                    .append("&amp;nbsp;&amp;nbsp;&lt;font color=\"#6f6f6f\"&gt;The Verge&lt;/font&gt;&lt;/li&gt;&lt;/ol&gt;")
+                    .append("</description><source url=\"https://www.theverge.com\">The Verge</source></item>\n");
+        }
+        return rss.append("</channel></rss>").toString();
+    }
+}
@@ -0,0 +1,202 @@
+package com.androidnews.crawler;
+
+import com.androidnews.dto.FetchStatsDTO;
+import com.androidnews.repository.FetchValidatorRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Runs the fetcher against a local stub server that misbehaves in the ways real sites do
+class PageFetcherTest {
+
+    private static final int MAX_BODY_BYTES = 1_000_000;
+
+    private final FetchValidatorRepository validators = Mockito.mock(FetchValidatorRepository.class);
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private String base;
+    private long bombSize;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        Mockito.when(validators.findById(Mockito.anyString())).thenReturn(Optional.empty());
+        byte[] page = "<html><head><title>Pixel 9 review</title></head><body><p>Android</p></body></html>"
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] gzippedPage = gzip(page);
+        // 50 MB of zeros packs into about 50 KB, far below the cap on the wire
+        byte[] bomb = gzip(new byte[50_000_000]);
+        bombSize = bomb.length;
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/page", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, gzippedPage.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(gzippedPage);
+            }
+        });
+        server.createContext("/declared-too-large", exchange -> {
+            exchange.sendResponseHeaders(200, MAX_BODY_BYTES * 10L);
+            writeQuietly(exchange.getResponseBody(), new byte[MAX_BODY_BYTES * 10], 1);
+        });
+        server.createContext("/chunked-too-large", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            writeQuietly(exchange.getResponseBody(), new byte[100_000], 100);
+        });
+        server.createContext("/gzip-bomb", exchange -> {
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, bomb.length);
+            writeQuietly(exchange.getResponseBody(), bomb, 1);
+        });
+        server.createContext("/trickle", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int i = 0; i < 50; i++) {
+                    out.write('x');
+                    out.flush();
+                    Thread.sleep(200);
+                }
+            } catch (IOException | InterruptedException ignored) {
+                // The client gave up
+            }
+        });
+        server.createContext("/stall", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write('x');
+                out.flush();
+                Thread.sleep(10_000);
+            } catch (IOException | InterruptedException ignored) {
+                // The client gave up
+            }
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void decodesGzipAndLeavesTheValidatorUnsaved() throws IOException {
+        FetchResult result = fetcher(0, 4).fetch(base + "/page", "Android Police");
+
+        assertThat(result.isModified()).isTrue();
+        assertThat(result.getCharset()).isEqualTo("UTF-8");
+        assertThat(result.parse().title()).isEqualTo("Pixel 9 review");
+        assertThat(result.getValidator().getContentHash()).isNotNull();
+        Mockito.verify(validators, Mockito.never()).save(Mockito.any());
+    }
+
+    @Test
+    void rejectsBodiesOverTheCap() {
+        PageFetcher fetcher = fetcher(0, 4);
+
+        assertThatThrownBy(() -> fetcher.fetch(base + "/declared-too-large", "Android Police"))
+                .isInstanceOf(PageFetcher.BodyTooLargeException.class)
+                .hasMessageContaining("Content-Length");
+        assertThatThrownBy(() -> fetcher.fetch(base + "/chunked-too-large", "Android Police"))
+                .isInstanceOf(PageFetcher.BodyTooLargeException.class);
+        assertThat(stats(fetcher).getOversized()).isEqualTo(2);
+    }
+
+    @Test
+    void stopsDecompressingAGzipBombAtTheCap() {
+        PageFetcher fetcher = fetcher(0, 4);
+
+        assertThatThrownBy(() -> fetcher.fetch(base + "/gzip-bomb", "Android Police"))
+                .isInstanceOf(PageFetcher.BodyTooLargeException.class)
+                .hasMessageContaining("Decoded body");
+        assertThat(stats(fetcher).getOversized()).isEqualTo(1);
+        // Read off the connection only until the decoded cap was hit, not the whole compressed body
+        assertThat(stats(fetcher).getBytesDownloaded()).isLessThan(bombSize);
+    }
+
+    @Test
+    void timesOutABodyThatTricklesIn() {
+        PageFetcher fetcher = new PageFetcher(validators, 1000, 1000, MAX_BODY_BYTES, 0, 4, "test");
+
+        long started = System.nanoTime();
+        // Each byte arrives well within the timeout, but the whole body would take ten seconds
+        assertThatThrownBy(() -> fetcher.fetch(base + "/trickle", "Android Police"))
+                .isInstanceOf(HttpTimeoutException.class);
+        assertThat((System.nanoTime() - started) / 1_000_000).isLessThan(5_000);
+    }
+
+    @Test
+    void timesOutABodyThatStalls() {
+        PageFetcher fetcher = new PageFetcher(validators, 1000, 1000, MAX_BODY_BYTES, 0, 4, "test");
+
+        long started = System.nanoTime();
+        // Nothing arrives after the first byte, so only the body deadline can end the read
+        assertThatThrownBy(() -> fetcher.fetch(base + "/stall", "Android Police"))
+                .isInstanceOf(HttpTimeoutException.class);
+        assertThat((System.nanoTime() - started) / 1_000_000).isLessThan(5_000);
+    }
+
+    @Test
+    void spacesRequestsToOneHostAfterTheBurst() throws IOException {
+        PageFetcher fetcher = fetcher(5, 2);
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 7; i++) {
+            fetcher.fetch(base + "/page", "Android Police");
+        }
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        // Two requests go out at once, the other five at 5 per second
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(900);
+        assertThat(stats(fetcher).getRateLimitWaitMillis()).isGreaterThanOrEqualTo(700);
+    }
+
+    private PageFetcher fetcher(double hostRatePerSecond, int hostBurst) {
+        return new PageFetcher(validators, 2000, 5000, MAX_BODY_BYTES, hostRatePerSecond, hostBurst, "test");
+    }
+
+    private static FetchStatsDTO stats(PageFetcher fetcher) {
+        return fetcher.getStats().stream()
+                .filter(stats -> stats.getSource().equals("Android Police"))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static void writeQuietly(OutputStream body, byte[] chunk, int times) {
+        try (OutputStream out = body) {
+            for (int i = 0; i < times; i++) {
+                out.write(chunk);
+            }
+        } catch (IOException ignored) {
+            // The client gave up
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+}
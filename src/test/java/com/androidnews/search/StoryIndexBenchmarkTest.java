@@ -0,0 +1,141 @@
+package com.androidnews.search;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Lookup cost of the banded LSH index against a full signature scan as the corpus grows. Synthetic articles of
+// 80 words arrive at 2000 a day; half the probes are lightly edited copies of a stored article, half unrelated.
+// Run with: mvn test -Pbenchmark -Dtest=StoryIndexBenchmarkTest [-Dstory.benchmark.max-corpus=1000000]
+@Tag("benchmark")
+class StoryIndexBenchmarkTest {
+
+    private static final int VOCABULARY = 20_000;
+    private static final int WORDS = 80;
+    private static final int ARTICLES_PER_DAY = 2_000;
+    private static final int PROBES = 2_000;
+    private static final long WINDOW_SECONDS = 72 * 3600;
+    private static final double THRESHOLD = 0.6;
+
+    @Test
+    void lshOutrunsFullScan() {
+        int maxCorpus = Integer.getInteger("story.benchmark.max-corpus", 100_000);
+        System.out.printf("%10s %12s %12s %10s %12s %12s %8s%n",
+                "corpus", "lsh us/op", "scan us/op", "speedup", "lsh found", "scan found", "false+");
+        for (int corpus = 1_000; corpus <= maxCorpus; corpus *= 10) {
+            run(corpus);
+        }
+    }
+
+    private static void run(int corpus) {
+        SplittableRandom random = new SplittableRandom(corpus);
+        StoryIndex index = new StoryIndex();
+        int[][] words = new int[corpus][];
+        int[][] stored = new int[corpus][];
+        for (int doc = 0; doc < corpus; doc++) {
+            words[doc] = randomArticle(random);
+            stored[doc] = MinHasher.signature(text(words[doc]));
+            index.add(doc, doc, publishedSecond(doc), stored[doc]);
+        }
+
+        int[][] probes = new int[PROBES][];
+        long[] published = new long[PROBES];
+        int[] expected = new int[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            if (i % 2 == 0) {
+                // Another outlet's copy of the wire story with one word in twenty changed
+                int original = random.nextInt(corpus);
+                probes[i] = words[original].clone();
+                for (int w = 0; w < WORDS / 20; w++) {
+                    probes[i][random.nextInt(WORDS)] = random.nextInt(VOCABULARY);
+                }
+                published[i] = publishedSecond(original) + 3600;
+                expected[i] = original;
+            } else {
+                probes[i] = randomArticle(random);
+                published[i] = publishedSecond(random.nextInt(corpus));
+                expected[i] = -1;
+            }
+        }
+        int[][] signatures = new int[PROBES][];
+        for (int i = 0; i < PROBES; i++) {
+            signatures[i] = MinHasher.signature(text(probes[i]));
+        }
+
+        // Warm both paths before timing
+        for (int i = 0; i < PROBES; i++) {
+            index.findBest(signatures[i], published[i], WINDOW_SECONDS, THRESHOLD);
+            scan(stored, signatures[i], published[i]);
+        }
+
+        int found = 0;
+        int falsePositives = 0;
+        long started = System.nanoTime();
+        for (int i = 0; i < PROBES; i++) {
+            StoryIndex.Match match = index.findBest(signatures[i], published[i], WINDOW_SECONDS, THRESHOLD);
+            if (expected[i] >= 0 && match != null && match.getNewsId() == expected[i]) {
+                found++;
+            } else if (expected[i] < 0 && match != null) {
+                falsePositives++;
+            }
+        }
+        double lshMicros = (System.nanoTime() - started) / 1_000.0 / PROBES;
+
+        int scanFound = 0;
+        started = System.nanoTime();
+        for (int i = 0; i < PROBES; i++) {
+            if (expected[i] >= 0 && scan(stored, signatures[i], published[i]) == expected[i]) {
+                scanFound++;
+            }
+        }
+        double scanMicros = (System.nanoTime() - started) / 1_000.0 / PROBES;
+
+        System.out.printf("%10d %12.2f %12.2f %9.0fx %11.1f%% %11.1f%% %8d%n", corpus, lshMicros, scanMicros,
+                scanMicros / lshMicros, 200.0 * found / PROBES, 200.0 * scanFound / PROBES, falsePositives);
+        assertThat(found).isGreaterThanOrEqualTo(scanFound * 95 / 100);
+        assertThat(falsePositives).isZero();
+        if (corpus >= 10_000) {
+            assertThat(lshMicros).isLessThan(scanMicros);
+        }
+    }
+
+    // Brute-force equivalent of StoryIndex.findBest: every stored signature inside the window is compared
+    private static int scan(int[][] stored, int[] signature, long publishedSecond) {
+        int bestDoc = -1;
+        double bestSimilarity = THRESHOLD;
+        for (int doc = 0; doc < stored.length; doc++) {
+            if (Math.abs(publishedSecond(doc) - publishedSecond) > WINDOW_SECONDS) {
+                continue;
+            }
+            double similarity = MinHasher.similarity(signature, stored[doc]);
+            if (similarity > bestSimilarity || (bestDoc < 0 && similarity == bestSimilarity)) {
+                bestSimilarity = similarity;
+                bestDoc = doc;
+            }
+        }
+        return bestDoc;
+    }
+
+    private static int[] randomArticle(SplittableRandom random) {
+        int[] article = new int[WORDS];
+        for (int w = 0; w < WORDS; w++) {
+            article[w] = random.nextInt(VOCABULARY);
+        }
+        return article;
+    }
+
+    private static String text(int[] words) {
+        StringBuilder text = new StringBuilder(words.length * 6);
+        for (int word : words) {
+            text.append('w').append(word).append(' ');
+        }
+        return text.toString();
+    }
+
+    private static long publishedSecond(int doc) {
+        return (long) doc * 86_400 / ARTICLES_PER_DAY;
+    }
+}
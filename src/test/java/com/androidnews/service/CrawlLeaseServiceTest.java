@@ -0,0 +1,149 @@
+package com.androidnews.service;
+
+import com.androidnews.AndroidNewsApplication;
+import com.androidnews.model.CrawlLease;
+import com.androidnews.repository.CrawlLeaseRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two application contexts on one shared H2 database stand in for two replicas. The heartbeating node keeps its
+// leases; the other never heartbeats, which is what a crashed node looks like to the rest of the cluster
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class CrawlLeaseServiceTest {
+
+    private static final long TTL_MILLIS = 2_000;
+
+    private ConfigurableApplicationContext live;
+    private ConfigurableApplicationContext crashed;
+    private CrawlLeaseService liveLeases;
+    private CrawlLeaseService crashedLeases;
+
+    @BeforeAll
+    void startNodes() {
+        live = start("live", 300);
+        crashed = start("crashed", 3_600_000);
+        liveLeases = live.getBean(CrawlLeaseService.class);
+        crashedLeases = crashed.getBean(CrawlLeaseService.class);
+    }
+
+    @AfterAll
+    void stopNodes() {
+        for (ConfigurableApplicationContext context : new ConfigurableApplicationContext[]{live, crashed}) {
+            if (context != null && context.isActive()) {
+                context.close();
+            }
+        }
+    }
+
+    @Test
+    @Order(1)
+    void heartbeatKeepsTheLeasePastItsTtl() throws InterruptedException {
+        assertThat(liveLeases.tryAcquire("Android Police")).isTrue();
+        assertThat(crashedLeases.tryAcquire("Android Police")).isFalse();
+
+        Thread.sleep(TTL_MILLIS * 2);
+
+        assertThat(crashedLeases.tryAcquire("Android Police")).isFalse();
+        assertThat(owner("Android Police")).isEqualTo("live");
+    }
+
+    @Test
+    @Order(2)
+    void leaseOfAStoppedNodeIsTakenOverAfterTheTtl() throws InterruptedException {
+        assertThat(crashedLeases.tryAcquire("Android Authority")).isTrue();
+        assertThat(liveLeases.tryAcquire("Android Authority")).isFalse();
+
+        long started = System.nanoTime();
+        while (!liveLeases.tryAcquire("Android Authority")) {
+            assertThat((System.nanoTime() - started) / 1_000_000).isLessThan(TTL_MILLIS * 3);
+            Thread.sleep(100);
+        }
+
+        assertThat((System.nanoTime() - started) / 1_000_000).isGreaterThanOrEqualTo(TTL_MILLIS - 500);
+        assertThat(owner("Android Authority")).isEqualTo("live");
+        // The old owner finds out on its next attempt instead of crawling alongside
+        assertThat(crashedLeases.tryAcquire("Android Authority")).isFalse();
+    }
+
+    @Test
+    @Order(3)
+    void concurrentClaimsHaveOneWinningNode() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 10; round++) {
+                String source = "race-" + round;
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> liveClaims = new ArrayList<>();
+                List<Future<Boolean>> crashedClaims = new ArrayList<>();
+                for (int i = 0; i < 4; i++) {
+                    liveClaims.add(pool.submit(claim(liveLeases, source, start)));
+                    crashedClaims.add(pool.submit(claim(crashedLeases, source, start)));
+                }
+                start.countDown();
+
+                boolean liveWon = anyWon(liveClaims);
+                boolean crashedWon = anyWon(crashedClaims);
+                assertThat(liveWon ^ crashedWon).as(source).isTrue();
+                assertThat(owner(source)).isEqualTo(liveWon ? "live" : "crashed");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @Order(4)
+    void cleanShutdownHandsTheLeasesBack() {
+        live.close();
+
+        assertThat(crashedLeases.tryAcquire("Android Police")).isTrue();
+        assertThat(crashedLeases.tryAcquire("Android Authority")).isTrue();
+    }
+
+    private static ConfigurableApplicationContext start(String nodeId, long heartbeatMillis) {
+        return new SpringApplicationBuilder(AndroidNewsApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:leasedb;DB_CLOSE_DELAY=-1",
+                        "--crawler.lease.node-id=" + nodeId,
+                        "--crawler.lease.ttl-seconds=" + TTL_MILLIS / 1000,
+                        "--crawler.lease.heartbeat-ms=" + heartbeatMillis);
+    }
+
+    private String owner(String source) {
+        return crashed.getBean(CrawlLeaseRepository.class).findById(source).map(CrawlLease::getOwner).orElse(null);
+    }
+
+    private static Callable<Boolean> claim(CrawlLeaseService leases, String source, CountDownLatch start) {
+        return () -> {
+            start.await();
+            return leases.tryAcquire(source);
+        };
+    }
+
+    private static boolean anyWon(List<Future<Boolean>> claims) throws Exception {
+        boolean won = false;
+        for (Future<Boolean> claim : claims) {
+            won |= claim.get();
+        }
+        return won;
+    }
+}
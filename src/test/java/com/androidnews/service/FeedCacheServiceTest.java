@@ -0,0 +1,35 @@
+package com.androidnews.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FeedCacheServiceTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void newerSharedVersionMissesWithoutAnyLocalInvalidation() {
+        FeedCacheService cache = new FeedCacheService(true, 1_000_000, 300);
+
+        assertThat(load(cache, "\"c1\"")).isEqualTo(1);
+        assertThat(load(cache, "\"c1\"")).isEqualTo(1);
+        // Another node advanced the category; this node never saw the event
+        assertThat(load(cache, "\"c2\"")).isEqualTo(2);
+    }
+
+    @Test
+    void entriesExpireEvenWhenTheVersionNeverMoves() throws InterruptedException {
+        FeedCacheService cache = new FeedCacheService(true, 1_000_000, 1);
+
+        assertThat(load(cache, "\"c1\"")).isEqualTo(1);
+        Thread.sleep(1_200);
+        assertThat(load(cache, "\"c1\"")).isEqualTo(2);
+    }
+
+    private int load(FeedCacheService cache, String version) {
+        return cache.get(FeedCacheService.Scope.CATEGORY, "phones", version, "page:0", loads::incrementAndGet);
+    }
+}
@@ -0,0 +1,72 @@
+package com.androidnews.service;
+
+import com.androidnews.TestNews;
+import com.androidnews.model.Category;
+import com.androidnews.model.News;
+import com.androidnews.repository.CategoryRepository;
+import com.androidnews.repository.FeedVersionRepository;
+import com.androidnews.repository.SourceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class FeedVersionServiceTest {
+
+    @Autowired
+    private FeedVersionService feedVersionService;
+
+    @Autowired
+    private FeedVersionRepository feedVersionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private NewsIngestService newsIngestService;
+
+    @Autowired
+    private SourceRepository sourceRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void everyNodeHandsOutTheVersionOfTheSharedRows() throws InterruptedException {
+        // A second service on the same database stands in for another replica that did not ingest anything
+        FeedVersionService otherNode = new FeedVersionService(feedVersionRepository, transactionManager, 200);
+        String global = otherNode.globalETag();
+        String phones = otherNode.categoryETag("phones");
+        String apps = otherNode.categoryETag("apps");
+        String tag = otherNode.tagETag("Versions");
+
+        Category category = categoryRepository.findBySlug("phones").orElseThrow();
+        News saved = newsIngestService.ingest(List.of(TestNews.article(
+                sourceRepository.findByName("Android Police").orElseThrow(), category, "Feed version check",
+                "https://police.example.com/feed-version", "<p>Versions</p>", LocalDateTime.now(), "Versions"))).get(0);
+
+        // The ingesting node sees its own change at once
+        assertThat(feedVersionService.globalETag()).isNotEqualTo(global);
+        assertThat(feedVersionService.categoryETag("phones")).isNotEqualTo(phones);
+        assertThat(feedVersionService.categoryETag("apps")).isEqualTo(apps);
+        assertThat(feedVersionService.tagETag("Versions")).isNotEqualTo(tag);
+
+        Thread.sleep(300);
+        assertThat(otherNode.globalETag()).isEqualTo(feedVersionService.globalETag());
+        assertThat(otherNode.categoryETag("phones")).isEqualTo(feedVersionService.categoryETag("phones"));
+        assertThat(otherNode.tagETag("Versions")).isEqualTo(feedVersionService.tagETag("Versions"));
+
+        String beforeDelete = feedVersionService.tagETag("Versions");
+        newsIngestService.delete(saved.getId());
+        assertThat(feedVersionService.tagETag("Versions")).isNotEqualTo(beforeDelete);
+        assertThat(feedVersionService.getStats().getCategoryVersions()).containsKey("phones");
+    }
+}
@@ -0,0 +1,79 @@
+package com.androidnews.service;
+
+import com.androidnews.model.News;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The writer runs against a mocked ingest service, so each test decides how a batch transaction behaves
+class IngestQueueServiceTest {
+
+    private final NewsIngestService newsIngestService = Mockito.mock(NewsIngestService.class);
+    private final CountDownLatch transactionMayEnd = new CountDownLatch(1);
+    private final IngestQueueService queue = new IngestQueueService(newsIngestService, 10, 5, 1);
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        transactionMayEnd.countDown();
+        queue.shutdown();
+    }
+
+    @Test
+    void submitAfterShutdownIsRejected() throws InterruptedException {
+        queue.start();
+        queue.shutdown();
+        IngestQueueService.Run run = queue.openRun();
+
+        assertThatThrownBy(() -> queue.submit(run, "Android Police", article(1)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(run.awaitWritten()).isTrue();
+    }
+
+    @Test
+    void writerThatDiesFailsEveryOutstandingArticle() throws InterruptedException {
+        Mockito.when(newsIngestService.ingest(Mockito.anyList())).thenAnswer(invocation -> {
+            transactionMayEnd.await();
+            throw new StackOverflowError("writer blew up");
+        });
+        queue.start();
+        IngestQueueService.Run run = queue.openRun();
+        for (int i = 0; i < 3; i++) {
+            queue.submit(run, "Android Police", article(i));
+        }
+
+        transactionMayEnd.countDown();
+
+        assertThat(run.awaitWritten()).isTrue();
+        assertThat(run.failed("Android Police")).isEqualTo(3);
+        assertThatThrownBy(() -> queue.submit(run, "Android Police", article(4)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void waitingForAStuckWriterTimesOut() throws InterruptedException {
+        Mockito.when(newsIngestService.ingest(Mockito.anyList())).thenAnswer(invocation -> {
+            transactionMayEnd.await();
+            return invocation.getArgument(0);
+        });
+        queue.start();
+        IngestQueueService.Run run = queue.openRun();
+        queue.submit(run, "Android Police", article(1));
+
+        long started = System.nanoTime();
+        assertThat(run.awaitWritten()).isFalse();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isBetween(900L, 5_000L);
+    }
+
+    private static News article(int i) {
+        News news = new News();
+        news.setTitle("Article " + i);
+        news.setSourceUrl("https://www.androidpolice.com/article-" + i);
+        return news;
+    }
+}
@@ -0,0 +1,103 @@
+package com.androidnews.service;
+
+import com.androidnews.TestNews;
+import com.androidnews.model.Category;
+import com.androidnews.model.Source;
+import com.androidnews.repository.CategoryRepository;
+import com.androidnews.repository.NewsRepository;
+import com.androidnews.repository.SourceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class NewsBodyMigrationServiceTest {
+
+    @Autowired
+    private NewsBodyMigrationService newsBodyMigrationService;
+
+    @Autowired
+    private NewsIngestService newsIngestService;
+
+    @Autowired
+    private NewsRepository newsRepository;
+
+    @Autowired
+    private SourceRepository sourceRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Recreates a database from before news_bodies: a NOT NULL content column holding every existing body, and
+    // a row that only has it
+    @Test
+    void copiesVerifiesAndOnlyThenDropsTheLegacyColumn() {
+        Source source = sourceRepository.findByName("Android Police").orElseThrow();
+        Category category = categoryRepository.findBySlug("phones").orElseThrow();
+        Long maxId = newsRepository.findMaxId();
+        long legacyId = (maxId == null ? 0 : maxId) + 30_000;
+        jdbcTemplate.execute("ALTER TABLE news ADD COLUMN content CLOB");
+        fillLegacyColumnFromBodies();
+        jdbcTemplate.execute("ALTER TABLE news ALTER COLUMN content SET NOT NULL");
+        jdbcTemplate.update("INSERT INTO news (id, title, summary, content, publish_date, source_id, category_id) "
+                + "VALUES (?, 'Legacy body', 'Legacy', '<p>Legacy body</p>', CURRENT_TIMESTAMP, ?, ?)",
+                legacyId, source.getId(), category.getId());
+        try {
+            assertThat(newsBodyMigrationService.verifyLegacyContent()).isEqualTo(1);
+            assertThatThrownBy(() -> newsBodyMigrationService.dropLegacyContent()).isInstanceOf(IllegalStateException.class);
+            assertThat(hasContentColumn()).isTrue();
+
+            assertThat(newsBodyMigrationService.copyLegacyContent()).isEqualTo(1);
+            assertThat(newsBodyMigrationService.copyLegacyContent()).isZero();
+            assertThat(contentOf(legacyId)).isEqualTo("<p>Legacy body</p>");
+
+            // Articles keep coming in while the legacy column is still there
+            newsIngestService.ingest(List.of(TestNews.article(source, category, "During migration",
+                    "https://migration.example.com/during")));
+
+            assertThat(newsBodyMigrationService.verifyLegacyContent()).isZero();
+            newsBodyMigrationService.dropLegacyContent();
+            assertThat(hasContentColumn()).isFalse();
+        } finally {
+            jdbcTemplate.update("DELETE FROM news WHERE id = ?", legacyId);
+            if (hasContentColumn()) {
+                jdbcTemplate.execute("ALTER TABLE news DROP COLUMN content");
+            }
+        }
+    }
+
+    private void fillLegacyColumnFromBodies() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (Long id : jdbcTemplate.queryForList("SELECT id FROM news", Long.class)) {
+                String content = newsRepository.findWithReferencesById(id).orElseThrow().getContent();
+                jdbcTemplate.update("UPDATE news SET content = ? WHERE id = ?", content == null ? "" : content, id);
+            }
+        });
+    }
+
+    private String contentOf(long id) {
+        return new TransactionTemplate(transactionManager).execute(status ->
+                newsRepository.findWithReferencesById(id).orElseThrow().getContent());
+    }
+
+    private boolean hasContentColumn() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_NAME = 'NEWS' AND COLUMN_NAME = 'CONTENT'", Integer.class) > 0;
+    }
+}
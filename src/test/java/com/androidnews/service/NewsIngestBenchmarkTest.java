@@ -0,0 +1,80 @@
+package com.androidnews.service;
+
+import com.androidnews.TestNews;
+import com.androidnews.model.Category;
+import com.androidnews.model.News;
+import com.androidnews.model.Source;
+import com.androidnews.repository.CategoryRepository;
+import com.androidnews.repository.NewsRepository;
+import com.androidnews.repository.SourceRepository;
+import com.androidnews.util.UrlCanonicalizer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Rows/s of the batched ingest against the per-article lookup + save loop it replaced.
+// Run with: mvn test -Pbenchmark -Dtest=NewsIngestBenchmarkTest
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class NewsIngestBenchmarkTest {
+
+    private static final int ARTICLES = 2_000;
+
+    @Autowired
+    private NewsIngestService newsIngestService;
+
+    @Autowired
+    private NewsRepository newsRepository;
+
+    @Autowired
+    private SourceRepository sourceRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void batchedIngestOutrunsPerArticleLoop() {
+        Source source = sourceRepository.findByName("Android Authority").orElseThrow();
+        Category category = categoryRepository.findBySlug("apps").orElseThrow();
+
+        // One lookup and one save transaction per article, as the crawler did before batching. The loop publishes
+        // no ingest event, so it also skips the index, counter and JSON work timed on the batched side
+        List<News> loopBatch = articles(source, category, "loop");
+        long started = System.nanoTime();
+        for (News news : loopBatch) {
+            if (!newsRepository.existsBySourceUrlHash(UrlCanonicalizer.hash(news.getSourceUrl()))) {
+                newsRepository.save(news);
+            }
+        }
+        double loopRowsPerSecond = ARTICLES / ((System.nanoTime() - started) / 1e9);
+
+        List<News> batched = articles(source, category, "batched");
+        started = System.nanoTime();
+        int saved = newsIngestService.ingest(batched).size();
+        double batchedRowsPerSecond = ARTICLES / ((System.nanoTime() - started) / 1e9);
+
+        System.out.printf("ingest %d articles: per-article loop %.0f rows/s, batched %.0f rows/s%n",
+                ARTICLES, loopRowsPerSecond, batchedRowsPerSecond);
+        assertThat(saved).isEqualTo(ARTICLES);
+        assertThat(batchedRowsPerSecond).isGreaterThan(loopRowsPerSecond);
+    }
+
+    private static List<News> articles(Source source, Category category, String run) {
+        List<News> articles = new ArrayList<>(ARTICLES);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ARTICLES; i++) {
+            articles.add(TestNews.article(source, category, "Benchmark " + run + " " + i,
+                    "https://bench.example.com/" + run + "/" + i, "<p>Body " + i + "</p>", now.minusMinutes(i), "A", "B"));
+        }
+        return articles;
+    }
+}
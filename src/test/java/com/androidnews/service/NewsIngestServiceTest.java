@@ -0,0 +1,147 @@
+package com.androidnews.service;
+
+import com.androidnews.TestNews;
+import com.androidnews.model.Category;
+import com.androidnews.model.FetchValidator;
+import com.androidnews.model.News;
+import com.androidnews.model.Source;
+import com.androidnews.repository.CategoryRepository;
+import com.androidnews.repository.FetchValidatorRepository;
+import com.androidnews.repository.NewsRepository;
+import com.androidnews.repository.SourceRepository;
+import com.androidnews.util.UrlCanonicalizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class NewsIngestServiceTest {
+
+    @Autowired
+    private NewsIngestService newsIngestService;
+
+    @Autowired
+    private NewsRepository newsRepository;
+
+    @Autowired
+    private SourceRepository sourceRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private FetchValidatorRepository fetchValidatorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Source source;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        source = sourceRepository.findByName("Android Police").orElseThrow();
+        category = categoryRepository.findBySlug("phones").orElseThrow();
+    }
+
+    @Test
+    void skipsArticlesAlreadyStoredOrRepeatedInTheBatch() {
+        List<News> first = newsIngestService.ingest(List.of(
+                TestNews.article(source, category, "Dedup one", "https://dedup.example.com/1"),
+                TestNews.article(source, category, "Dedup one again", "https://dedup.example.com/1")));
+        List<News> second = newsIngestService.ingest(List.of(
+                TestNews.article(source, category, "Dedup one later", "https://dedup.example.com/1"),
+                TestNews.article(source, category, "Dedup two", "https://dedup.example.com/2")));
+
+        assertThat(first).extracting(News::getTitle).containsExactly("Dedup one");
+        assertThat(second).extracting(News::getTitle).containsExactly("Dedup two");
+    }
+
+    @Test
+    void keepsCrawledUrlAndDedupsOnCanonicalForm() {
+        String crawled = "http://www.Example.com/keep/story?utm_source=feed&b=2&a=1";
+        List<News> saved = newsIngestService.ingest(List.of(
+                TestNews.article(source, category, "Keep crawled URL", crawled)));
+        List<News> again = newsIngestService.ingest(List.of(
+                TestNews.article(source, category, "Same story, clean URL", "https://www.example.com/keep/story?a=1&b=2")));
+
+        assertThat(newsRepository.findById(saved.get(0).getId()).orElseThrow().getSourceUrl()).isEqualTo(crawled);
+        assertThat(again).isEmpty();
+    }
+
+    // The hash backfill leaves the second copy of a legacy URL unhashed; later updates must not rehash it
+    @Test
+    void updatesLegacyDuplicateWithoutRehashingIt() {
+        Long maxId = newsRepository.findMaxId();
+        long first = (maxId == null ? 0 : maxId) + 20_000;
+        String url = "https://legacy.example.com/duplicate";
+        for (long id = first; id < first + 2; id++) {
+            jdbcTemplate.update("INSERT INTO news (id, title, summary, publish_date, source_url, source_id, category_id) "
+                    + "VALUES (?, 'Legacy duplicate', 'Legacy', CURRENT_TIMESTAMP, ?, ?, ?)",
+                    id, url, source.getId(), category.getId());
+        }
+        try {
+            newsIngestService.backfillSourceUrlHashes();
+            newsIngestService.backfillIngestSequence();
+
+            assertThat(newsRepository.findById(first).orElseThrow().getSourceUrlHash()).isNotNull();
+            News duplicate = newsRepository.findById(first + 1).orElseThrow();
+            assertThat(duplicate.getSourceUrlHash()).isNull();
+            assertThat(duplicate.getIngestSeq()).isNotNull();
+        } finally {
+            jdbcTemplate.update("DELETE FROM news WHERE id IN (?, ?)", first, first + 1);
+        }
+    }
+
+    // A database created with IDENTITY ids has rows above where news_seq starts
+    @Test
+    void restartsIdSequenceAboveExistingRows() {
+        Long maxId = newsRepository.findMaxId();
+        long legacyId = (maxId == null ? 0 : maxId) + 10_000;
+        jdbcTemplate.update("INSERT INTO news (id, title, summary, publish_date, source_id, category_id) "
+                + "VALUES (?, 'Legacy row', 'Legacy', CURRENT_TIMESTAMP, ?, ?)", legacyId, source.getId(), category.getId());
+        try {
+            assertThat(newsIngestService.alignIdSequence()).isTrue();
+            assertThat(newsIngestService.alignIdSequence()).isFalse();
+
+            List<News> saved = newsIngestService.ingest(List.of(
+                    TestNews.article(source, category, "After legacy row", "https://sequence.example.com/after-legacy")));
+            assertThat(saved.get(0).getId()).isGreaterThan(legacyId);
+        } finally {
+            jdbcTemplate.update("DELETE FROM news WHERE id = ?", legacyId);
+        }
+    }
+
+    @Test
+    void storesArticleValidatorOnlyWhenTheArticleIsWritten() {
+        News written = TestNews.article(source, category, "Validated", "https://validator.example.com/written");
+        written.setFetchValidator(validator("https://validator.example.com/written"));
+        News rejected = TestNews.article(source, category, "x".repeat(300), "https://validator.example.com/rejected");
+        rejected.setFetchValidator(validator("https://validator.example.com/rejected"));
+
+        newsIngestService.ingest(List.of(written));
+        assertThatThrownBy(() -> newsIngestService.ingest(List.of(rejected))).isInstanceOf(RuntimeException.class);
+
+        assertThat(fetchValidatorRepository.findById(written.getFetchValidator().getUrlHash())).isPresent();
+        assertThat(fetchValidatorRepository.findById(rejected.getFetchValidator().getUrlHash())).isEmpty();
+    }
+
+    private static FetchValidator validator(String url) {
+        FetchValidator validator = new FetchValidator();
+        validator.setUrlHash(UrlCanonicalizer.hash(url));
+        validator.setUrl(url);
+        validator.setEtag("\"v1\"");
+        validator.setLastFetched(LocalDateTime.now());
+        return validator;
+    }
+}
@@ -0,0 +1,137 @@
+package com.androidnews.service;
+
+import com.androidnews.TestNews;
+import com.androidnews.model.Category;
+import com.androidnews.model.News;
+import com.androidnews.model.Source;
+import com.androidnews.repository.CategoryRepository;
+import com.androidnews.repository.SourceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// One dispatcher thread and tiny socket buffers: a client that never reads blocks its first few writes
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"news-stream.dispatch-threads=1", "news-stream.send-timeout-ms=500"})
+@ActiveProfiles("test")
+class NewsStreamServiceTest {
+
+    private static final int BATCHES = 10;
+    private static final int BATCH_SIZE = 20;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private NewsStreamService newsStreamService;
+
+    @Autowired
+    private NewsIngestService newsIngestService;
+
+    @Autowired
+    private SourceRepository sourceRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void stalledClientIsDroppedWithoutHoldingUpOthers() throws Exception {
+        try (Socket stalled = new Socket()) {
+            stalled.setReceiveBufferSize(1024);
+            stalled.connect(new InetSocketAddress("localhost", port));
+            OutputStream out = stalled.getOutputStream();
+            out.write("GET /api/news/stream HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            AtomicInteger received = new AtomicInteger();
+            HttpClient.newHttpClient().sendAsync(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/news/stream")).build(),
+                    HttpResponse.BodyHandlers.fromLineSubscriber(new CountingSubscriber(received)));
+            awaitTrue(() -> newsStreamService.getStats().getSubscribers() == 2);
+
+            Source source = sourceRepository.findByName("Android Police").orElseThrow();
+            Category category = categoryRepository.findBySlug("phones").orElseThrow();
+            for (int batch = 0; batch < BATCHES; batch++) {
+                List<News> articles = new ArrayList<>();
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    News news = TestNews.article(source, category, "Stream " + batch + "-" + i,
+                            "https://stream.example.com/" + batch + "/" + i);
+                    news.setSummary("s".repeat(2000));
+                    articles.add(news);
+                }
+                newsIngestService.ingest(articles);
+            }
+
+            awaitTrue(() -> received.get() == BATCHES * BATCH_SIZE);
+            assertThat(newsStreamService.getStats().getSlowConsumersDropped()).isEqualTo(1);
+            assertThat(newsStreamService.getStats().getSubscribers()).isEqualTo(1);
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    @TestConfiguration
+    static class SmallSendBuffers {
+
+        @Bean
+        WebServerFactoryCustomizer<TomcatServletWebServerFactory> smallSendBuffers() {
+            return factory -> factory.addConnectorCustomizers(connector -> connector.setProperty("socket.txBufSize", "2048"));
+        }
+    }
+
+    private static class CountingSubscriber implements Flow.Subscriber<String> {
+        private final AtomicInteger received;
+
+        CountingSubscriber(AtomicInteger received) {
+            this.received = received;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (line.equals("event:news")) {
+                received.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.androidnews.service;
+
+import com.androidnews.TestNews;
+import com.androidnews.model.Category;
+import com.androidnews.model.News;
+import com.androidnews.model.RelatedNews;
+import com.androidnews.model.Source;
+import com.androidnews.repository.CategoryRepository;
+import com.androidnews.repository.RelatedNewsRepository;
+import com.androidnews.repository.SourceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RelatedNewsServiceTest {
+
+    @Autowired
+    private NewsIngestService newsIngestService;
+
+    @Autowired
+    private RelatedNewsRepository relatedNewsRepository;
+
+    @Autowired
+    private SourceRepository sourceRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Source source;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        source = sourceRepository.findByName("Android Police").orElseThrow();
+        category = categoryRepository.findBySlug("phones").orElseThrow();
+    }
+
+    @Test
+    void relatesArticlesOfTheSameBatch() {
+        List<News> saved = newsIngestService.ingest(List.of(
+                article("Batch first", "https://related.example.com/batch/1", "RelatedBatch"),
+                article("Batch second", "https://related.example.com/batch/2", "RelatedBatch")));
+
+        assertThat(relatedIdsOf(saved.get(1))).contains(saved.get(0).getId());
+    }
+
+    // The commit fails after the before-commit listeners have run, as when a later listener or the database does
+    @Test
+    void rolledBackArticlesAreNotOffered() {
+        News rejected = article("Rolled back", "https://related.example.com/rollback/1", "RelatedRollback");
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            newsIngestService.ingest(List.of(rejected));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    throw new IllegalStateException("Commit failed");
+                }
+            });
+        })).isInstanceOf(IllegalStateException.class);
+
+        News later = newsIngestService.ingest(List.of(
+                article("After rollback", "https://related.example.com/rollback/2", "RelatedRollback"))).get(0);
+
+        assertThat(rejected.getId()).isNotNull();
+        assertThat(relatedIdsOf(later)).doesNotContain(rejected.getId());
+    }
+
+    @Test
+    void deletedArticlesAreNotOffered() {
+        News deleted = newsIngestService.ingest(List.of(
+                article("Deleted later", "https://related.example.com/delete/1", "RelatedDelete"))).get(0);
+        newsIngestService.delete(deleted.getId());
+
+        News later = newsIngestService.ingest(List.of(
+                article("After delete", "https://related.example.com/delete/2", "RelatedDelete"))).get(0);
+
+        assertThat(relatedIdsOf(later)).doesNotContain(deleted.getId());
+    }
+
+    private News article(String title, String url, String tag) {
+        return TestNews.article(source, category, title, url, "<p>" + title + "</p>", LocalDateTime.now(), tag);
+    }
+
+    private List<Long> relatedIdsOf(News news) {
+        return relatedNewsRepository.findByNewsIds(List.of(news.getId())).stream()
+                .map(RelatedNews::getRelatedId)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,113 @@
+package com.androidnews.service;
+
+import com.androidnews.AndroidNewsApplication;
+import com.androidnews.TestNews;
+import com.androidnews.model.Category;
+import com.androidnews.model.News;
+import com.androidnews.model.RelatedNews;
+import com.androidnews.repository.CategoryRepository;
+import com.androidnews.repository.NewsRepository;
+import com.androidnews.repository.RelatedNewsRepository;
+import com.androidnews.repository.SourceRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two application contexts on one shared H2 database stand in for two replicas; only the writer crawls and deletes,
+// the reader learns about its articles from the catch-up poll alone
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReplicaCatchUpServiceTest {
+
+    private ConfigurableApplicationContext writer;
+    private ConfigurableApplicationContext reader;
+
+    @BeforeAll
+    void startNodes() throws InterruptedException {
+        writer = start("writer");
+        reader = start("reader");
+        await(() -> reader.getBean(SearchIndexService.class).isReady()
+                && reader.getBean(StoryService.class).getStats().isReady());
+    }
+
+    @AfterAll
+    void stopNodes() {
+        for (ConfigurableApplicationContext context : new ConfigurableApplicationContext[]{writer, reader}) {
+            if (context != null && context.isActive()) {
+                context.close();
+            }
+        }
+    }
+
+    @Test
+    void readerSeesArticlesStoredAndDeletedByAnotherNode() throws InterruptedException {
+        LocalDateTime published = LocalDateTime.now().minusHours(3);
+        News lead = ingest(writer, "Android Police", "Foldable teardown", "https://police.example.com/fold-teardown",
+                published, 0);
+        SearchIndexService readerSearch = reader.getBean(SearchIndexService.class);
+        await(() -> readerSearch.search("foldable teardown", 0, 10).getNewsIds().contains(lead.getId()));
+
+        // A near-duplicate crawled by the reader joins the story the writer started and relates to its article
+        News copy = ingest(reader, "Android Authority", "Foldable teardown", "https://authority.example.com/fold-teardown",
+                published.plusHours(1), 4);
+        NewsRepository newsRepository = reader.getBean(NewsRepository.class);
+        assertThat(newsRepository.findById(copy.getId()).orElseThrow().getStoryId()).isEqualTo(lead.getId());
+        List<Long> related = reader.getBean(RelatedNewsRepository.class).findByNewsIds(List.of(copy.getId())).stream()
+                .map(RelatedNews::getRelatedId)
+                .collect(Collectors.toList());
+        assertThat(related).contains(lead.getId());
+
+        writer.getBean(NewsIngestService.class).delete(lead.getId());
+        await(() -> !readerSearch.search("foldable teardown", 0, 10).getNewsIds().contains(lead.getId()));
+        assertThat(readerSearch.search("foldable teardown", 0, 10).getNewsIds()).contains(copy.getId());
+    }
+
+    private static ConfigurableApplicationContext start(String nodeId) {
+        return new SpringApplicationBuilder(AndroidNewsApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:catchupdb;DB_CLOSE_DELAY=-1",
+                        "--crawler.lease.node-id=" + nodeId,
+                        "--cluster.catch-up-ms=200");
+    }
+
+    private static News ingest(ConfigurableApplicationContext node, String sourceName, String title, String url,
+                               LocalDateTime published, int edits) {
+        Category category = node.getBean(CategoryRepository.class).findBySlug("phones").orElseThrow();
+        News news = TestNews.article(node.getBean(SourceRepository.class).findByName(sourceName).orElseThrow(),
+                category, title, url, body(edits), published, "Catch-up");
+        return node.getBean(NewsIngestService.class).ingest(List.of(news)).get(0);
+    }
+
+    // 80 words from one seed, with a few replaced as another outlet's rewrite would
+    private static String body(int edits) {
+        Random random = new Random(42);
+        String[] words = new String[80];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = "word" + random.nextInt(5000);
+        }
+        Random edit = new Random(edits * 31L + 7);
+        for (int i = 0; i < edits; i++) {
+            words[edit.nextInt(words.length)] = "edit" + edit.nextInt(5000);
+        }
+        return "<p>" + String.join(" ", words) + "</p>";
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 10s").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.androidnews.service;
+
+import com.androidnews.TestNews;
+import com.androidnews.dto.NewsDTO;
+import com.androidnews.model.Category;
+import com.androidnews.model.News;
+import com.androidnews.repository.CategoryRepository;
+import com.androidnews.repository.SourceRepository;
+import com.androidnews.util.FieldSelection;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class StoryServiceTest {
+
+    @Autowired
+    private NewsIngestService newsIngestService;
+
+    @Autowired
+    private NewsJsonService newsJsonService;
+
+    @Autowired
+    private NewsService newsService;
+
+    @Autowired
+    private SourceRepository sourceRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FeedVersionService feedVersionService;
+
+    @Autowired
+    private FeedCacheService feedCacheService;
+
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.findBySlug("phones").orElseThrow();
+    }
+
+    @Test
+    void storedArticleCarriesTheStoryItLaterLeads() throws IOException {
+        LocalDateTime published = LocalDateTime.now().minusHours(5);
+        News lead = newsIngestService.ingest(List.of(
+                article("Android Police", "Pixel launch", "story-later", 0, published, "https://police.example.com/pixel"))).get(0);
+        long synced = syncedUpTo();
+        News copy = newsIngestService.ingest(List.of(
+                article("Android Authority", "Pixel launch", "story-later", 4, published.plusHours(1),
+                        "https://authority.example.com/pixel"))).get(0);
+
+        assertThat(copy.getStoryId()).isEqualTo(lead.getId());
+        assertThat(storyIdInJson(lead.getId())).isEqualTo(lead.getId());
+        // A client that synced the lead before it joined the story sees it change, with its new storyId
+        assertThat(newsService.getChanges(synced, 100, FieldSelection.card()).getItems())
+                .filteredOn(item -> item.getId().equals(lead.getId()))
+                .singleElement()
+                .satisfies(item -> assertThat(item.getStoryId()).isEqualTo(lead.getId()));
+        assertThat(storyIdInJson(copy.getId())).isEqualTo(lead.getId());
+        assertThat(newsService.getNewsById(lead.getId()).getStoryId()).isEqualTo(lead.getId());
+
+        // The story dissolves once only one article is left
+        synced = syncedUpTo();
+        newsIngestService.delete(copy.getId());
+
+        assertThat(storyIdInJson(lead.getId())).isNull();
+        assertThat(newsService.getNewsById(lead.getId()).getStoryId()).isNull();
+        assertThat(newsService.getChanges(synced, 100, FieldSelection.card()).getItems())
+                .extracting(NewsDTO::getId)
+                .containsExactly(lead.getId());
+    }
+
+    @Test
+    void rootOfTheSameBatchCarriesItsStory() throws IOException {
+        LocalDateTime published = LocalDateTime.now().minusHours(3);
+        List<News> saved = newsIngestService.ingest(List.of(
+                article("Android Police", "Galaxy leak", "story-batch", 0, published, "https://police.example.com/galaxy"),
+                article("Android Authority", "Galaxy leak", "story-batch", 3, published.plusMinutes(20),
+                        "https://authority.example.com/galaxy")));
+        long lead = saved.get(0).getId();
+
+        assertThat(saved.get(0).getStoryId()).isEqualTo(lead);
+        assertThat(storyIdInJson(lead)).isEqualTo(lead);
+        assertThat(storyIdInJson(saved.get(1).getId())).isEqualTo(lead);
+    }
+
+    @Test
+    void pagedListsShowOneCardPerStory() {
+        LocalDateTime published = LocalDateTime.now().minusHours(2);
+        List<News> saved = newsIngestService.ingest(List.of(
+                article("Android Police", "Tablet launch", "story-paged", 0, published, "https://police.example.com/tablet"),
+                article("Android Authority", "Tablet launch", "story-paged", 2, published.plusMinutes(10),
+                        "https://authority.example.com/tablet")));
+        long copy = saved.get(1).getId();
+        assertThat(saved.get(1).getStoryId()).isEqualTo(saved.get(0).getId());
+
+        Pageable all = PageRequest.of(0, 10_000);
+        List<Page<NewsDTO>> pages = List.of(
+                newsService.getAllNews(all, FieldSelection.card()),
+                newsService.getNewsByCategory("phones", all, FieldSelection.card()),
+                newsService.getNewsByTag("Stories", all, FieldSelection.card()));
+        for (Page<NewsDTO> page : pages) {
+            assertThat(page.getContent()).extracting(NewsDTO::getId)
+                    .contains(saved.get(0).getId())
+                    .doesNotContain(copy);
+            assertThat(page.getTotalElements()).isEqualTo(page.getContent().size());
+        }
+    }
+
+    @Test
+    void feedsOfAStoredLeadChangeWhenItJoinsAStory() {
+        LocalDateTime published = LocalDateTime.now().minusHours(4);
+        Category apps = categoryRepository.findBySlug("apps").orElseThrow();
+        newsIngestService.ingest(List.of(TestNews.article(sourceRepository.findByName("Android Police").orElseThrow(),
+                apps, "Watch launch", "https://police.example.com/watch", body("story-feeds", 0), published, "LeadOnly")));
+        String appsETag = feedVersionService.categoryETag("apps");
+        String leadTagETag = feedVersionService.tagETag("LeadOnly");
+        int[] cached = {0};
+        feedCacheService.get(FeedCacheService.Scope.CATEGORY, "apps", appsETag, "page:0", () -> ++cached[0]);
+
+        // The copy lands in another category under another tag; only the lead's re-render touches apps
+        newsIngestService.ingest(List.of(article("Android Authority", "Watch launch", "story-feeds", 3,
+                published.plusMinutes(30), "https://authority.example.com/watch")));
+
+        assertThat(feedVersionService.categoryETag("apps")).isNotEqualTo(appsETag);
+        assertThat(feedVersionService.tagETag("LeadOnly")).isNotEqualTo(leadTagETag);
+        assertThat(feedCacheService.get(FeedCacheService.Scope.CATEGORY, "apps", appsETag, "page:0", () -> ++cached[0]))
+                .isEqualTo(2);
+    }
+
+    // Where a client that has read every change so far resumes
+    private long syncedUpTo() {
+        return newsService.getChanges(0, 10_000, FieldSelection.card()).getNextSince();
+    }
+
+    private Long storyIdInJson(long id) throws IOException {
+        JsonNode storyId = objectMapper.readTree(newsJsonService.getDetailJson(id)).get("storyId");
+        return storyId == null ? null : storyId.asLong();
+    }
+
+    private News article(String sourceName, String title, String seed, int edits, LocalDateTime published, String url) {
+        return TestNews.article(sourceRepository.findByName(sourceName).orElseThrow(), category, title, url,
+                body(seed, edits), published, "Stories");
+    }
+
+    // 80 words drawn from the seed, with a few replaced as another outlet's rewrite would
+    private static String body(String seed, int edits) {
+        Random random = new Random(seed.hashCode());
+        String[] words = new String[80];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = "word" + random.nextInt(5000);
+        }
+        Random edit = new Random(edits * 31L + 7);
+        for (int i = 0; i < edits; i++) {
+            words[edit.nextInt(words.length)] = "edit" + edit.nextInt(5000);
+        }
+        return "<p>" + String.join(" ", words) + "</p>";
+    }
+}
@@ -0,0 +1,72 @@
+package com.androidnews.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UrlCanonicalizerTest {
+
+    @Test
+    void normalizesSchemeHostPortTrackingAndOrder() {
+        assertThat(UrlCanonicalizer.canonicalize("HTTP://WWW.Example.com:80/a/b?utm_source=x&b=2&a=1#frag"))
+                .isEqualTo(UrlCanonicalizer.canonicalize("https://www.example.com/a/b?a=1&b=2"));
+    }
+
+    @Test
+    void unwrapsGoogleRedirects() {
+        assertThat(UrlCanonicalizer.canonicalize("https://www.google.com/url?q=https://foo.com/x&sa=D"))
+                .isEqualTo(UrlCanonicalizer.canonicalize("https://foo.com/x"));
+    }
+
+    @Test
+    void hashesEquivalentUrlsTheSame() {
+        assertThat(UrlCanonicalizer.hash("http://example.com/story?utm_campaign=rss"))
+                .isEqualTo(UrlCanonicalizer.hash("https://example.com/story"))
+                .hasSize(64);
+        assertThat(UrlCanonicalizer.hash(null)).isNull();
+    }
+
+    @Test
+    void unwrapsOnlyTheUrlFieldOfAGoogleNewsId() {
+        String target = "https://www.theverge.com/2024/5/18/pixel";
+        // A second string field follows the URL: tag 0x22 is '"' and length 48 is '0', both valid in the old scan
+        String id = googleNewsId(target, "AU_yqLN2kQx8v3sZtFq1w0CMiSGh0dHBzOi8vd3d3LnRoZYy");
+
+        assertThat(UrlCanonicalizer.canonicalize("https://news.google.com/rss/articles/" + id + "?oc=5"))
+                .isEqualTo(UrlCanonicalizer.canonicalize(target));
+    }
+
+    @Test
+    void keepsUndecodableGoogleNewsIds() {
+        assertThat(UrlCanonicalizer.canonicalize("https://news.google.com/rss/articles/CBMi!!?oc=5&hl=en-US"))
+                .isEqualTo("https://news.google.com/rss/articles/CBMi!!?hl=en-US");
+    }
+
+    @Test
+    void stripsGenericTrackingNamesOnlyOnHostsThatUseThem() {
+        assertThat(UrlCanonicalizer.canonicalize("https://twitter.com/AndroidPolice/status/1?ref=share"))
+                .isEqualTo("https://twitter.com/AndroidPolice/status/1");
+        assertThat(UrlCanonicalizer.canonicalize("https://github.com/android/nowinandroid/tree?ref=main&oc=2"))
+                .isEqualTo("https://github.com/android/nowinandroid/tree?oc=2&ref=main");
+    }
+
+    private static String googleNewsId(String url, String trailer) {
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        message.write(0x08);
+        message.write(0x13);
+        writeString(message, url);
+        writeString(message, trailer);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(message.toByteArray());
+    }
+
+    private static void writeString(ByteArrayOutputStream message, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        message.write(0x22);
+        message.write(bytes.length);
+        message.writeBytes(bytes);
+    }
+}